@@ -1,8 +1,11 @@
 package de.tobiasgaenzler.pegsolitaire.board;
 
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
 
 /**
  * Interface to describe common methods of boards.
@@ -76,6 +79,79 @@ public interface Board {
      */
     long[] getSymmetricPositions(long position);
 
+    /**
+     * Write all symmetric positions of the position to the given buffer (same order as {@link #getSymmetricPositions(long)}).
+     *
+     * @param position           find positions which are symmetric to this position
+     * @param symmetricPositions buffer with room for {@link #getNumberOfSymmetries()} positions
+     */
+    default void getSymmetricPositions(long position, long[] symmetricPositions) {
+        long[] positions = getSymmetricPositions(position);
+        System.arraycopy(positions, 0, symmetricPositions, 0, positions.length);
+    }
+
+    /**
+     * @return the number of symmetric positions of a position (including the position itself)
+     */
+    default int getNumberOfSymmetries() {
+        return getSymmetricPositions(0L).length;
+    }
+
+    /**
+     * Return the canonical form of a position, i.e. the smallest of all symmetric positions.
+     * Symmetric positions have the same canonical form, hence sets of canonical positions contain
+     * no symmetric duplicates and one lookup is sufficient to detect if a symmetric position is already known.
+     * Boards use precomputed lookup tables, the default implementation is only a fallback.
+     *
+     * @param position the position
+     * @return the minimum of all symmetric positions
+     */
+    default long canonicalize(long position) {
+        long canonicalPosition = position;
+        for (long symmetricPosition : getSymmetricPositions(position)) {
+            canonicalPosition = Math.min(canonicalPosition, symmetricPosition);
+        }
+        return canonicalPosition;
+    }
+
+    /**
+     * Gather the holes of the layout into the lowest bits (dense representation, the order of the bits is kept),
+     * e.g. positions of the English board need 33 bits instead of 49 bits.
+     * Compression preserves the order of positions, i.e. sorted positions are still sorted after compression.
+     * Boards use precomputed lookup tables, the default implementation is only a fallback.
+     *
+     * @param position the position
+     * @return the dense representation of the position
+     */
+    default long compress(long position) {
+        long layout = getLayout();
+        long denseBits = 0L;
+        for (int hole = 0; layout != 0L; hole++, layout &= layout - 1L) {
+            if ((position & Long.lowestOneBit(layout)) != 0L) {
+                denseBits |= 1L << hole;
+            }
+        }
+        return denseBits;
+    }
+
+    /**
+     * Inverse of {@link #compress(long)}.
+     * Boards use precomputed lookup tables, the default implementation is only a fallback.
+     *
+     * @param denseBits the dense representation of a position
+     * @return the position
+     */
+    default long expand(long denseBits) {
+        long layout = getLayout();
+        long position = 0L;
+        for (int hole = 0; layout != 0L; hole++, layout &= layout - 1L) {
+            if ((denseBits & (1L << hole)) != 0L) {
+                position |= Long.lowestOneBit(layout);
+            }
+        }
+        return position;
+    }
+
     /**
      * return a string representing for the position on this board
      * positions not in the layout are not displayed
@@ -96,6 +172,68 @@ public interface Board {
      */
     List<Move> getMoves();
 
+    /**
+     * Move masks (all three pegs) of all possible moves in the order of {@link #getMoves()}.
+     * Boards return a precomputed array, the default implementation is only a fallback.
+     *
+     * @return array of move masks
+     */
+    default long[] getMoveMasks() {
+        return getMoves().stream().mapToLong(Move::getMask).toArray();
+    }
+
+    /**
+     * Check masks (first and second peg) of all possible moves in the order of {@link #getMoves()}.
+     * Boards return a precomputed array, the default implementation is only a fallback.
+     *
+     * @return array of check masks
+     */
+    default long[] getMoveChecks() {
+        return getMoves().stream().mapToLong(Move::getCheck).toArray();
+    }
+
+    /**
+     * Symmetric move masks of all moves, i.e. for every move the mask transformed with every symmetry
+     * (index: move * {@link #getNumberOfSymmetries()} + symmetry).
+     * Symmetries are bit permutations, hence applying a move commutes with applying a symmetry:
+     * T(position ^ mask) == T(position) ^ T(mask).
+     * Boards return a precomputed array, the default implementation is only a fallback.
+     *
+     * @return array of symmetric move masks
+     */
+    default long[] getSymmetricMoveMasks() {
+        return getMoves().stream()
+                .flatMapToLong(move -> Arrays.stream(getSymmetricPositions(move.getMask())))
+                .toArray();
+    }
+
+    /**
+     * Position classes (parity invariants) of this board, see {@link PositionClassifier}.
+     * Boards return a precomputed classifier, the default implementation is only a fallback.
+     *
+     * @return the position classifier
+     */
+    default PositionClassifier getPositionClassifier() {
+        return new PositionClassifier(getLayout(), getMoveMasks());
+    }
+
+    /**
+     * Moves do not change the class of a position (see {@link PositionClassifier}), i.e. a position can only reach an
+     * end position of the same class: the end position of the board or a position with one peg if the board does not
+     * define an end position.
+     *
+     * @param position the position
+     * @return false if no end position has the same class as the position
+     */
+    default boolean hasEndPositionOfSameClass(long position) {
+        PositionClassifier positionClassifier = getPositionClassifier();
+        Long endPosition = getEndPosition();
+        if (endPosition != null) {
+            return positionClassifier.getPositionClass(position) == positionClassifier.getPositionClass(endPosition);
+        }
+        return positionClassifier.isOnePegClass(position);
+    }
+
     /**
      * get the masks to identify a connected move, i.e. two consecutive moves where the same peg moves twice
      *
@@ -137,13 +275,216 @@ public interface Board {
      * i.e. all positions which are the result of applying one move to the given position
      */
     default long[] getConsecutivePositions(long position) {
-        return getMoves().stream()//
-                // apply mask to position and detect if move is possible
-                // i.e.  masked equals two pegs which are adjacent to an empty slot
-                .filter(move -> move.getCheck() == (position & move.getMask()))//
+        long[] consecutivePositions = new long[getMoveMasks().length];
+        int numberOfConsecutivePositions = getConsecutivePositions(position, consecutivePositions);
+        return Arrays.copyOf(consecutivePositions, numberOfConsecutivePositions);
+    }
+
+    /**
+     * Apply all possible moves to the given position and write the resulting positions to the given buffer.
+     * No objects are allocated, i.e. the buffer can be reused by the caller (e.g. one buffer per search depth).
+     *
+     * @param position             long the position to which the moves are applied.
+     * @param consecutivePositions buffer for the consecutive positions, needs room for one position per move
+     * @return the number of consecutive positions written to the buffer
+     */
+    default int getConsecutivePositions(long position, long[] consecutivePositions) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        int numberOfConsecutivePositions = 0;
+        for (int move = 0; move < masks.length; move++) {
+            // apply mask to position and detect if move is possible
+            // i.e.  masked equals two pegs which are adjacent to an empty slot
+            if ((position & masks[move]) == checks[move]) {
                 // apply move, i.e. the two pegs are xor'ed to zero and the empty slot is xor'ed to one
-                .mapToLong(move -> position ^ move.getMask())//
-                .toArray();
+                consecutivePositions[numberOfConsecutivePositions++] = position ^ masks[move];
+            }
+        }
+        return numberOfConsecutivePositions;
+    }
+
+    /**
+     * Apply all possible moves to the given position and pass each resulting position to the consumer.
+     * Allocation free alternative to {@link #getConsecutivePositions(long)}.
+     *
+     * @param position long the position to which the moves are applied.
+     * @param consumer receives all consecutive positions
+     */
+    default void forEachConsecutivePosition(long position, LongConsumer consumer) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == checks[move]) {
+                consumer.accept(position ^ masks[move]);
+            }
+        }
+    }
+
+    /**
+     * Test if at least one consecutive position of the given position matches the predicate.
+     * The remaining moves are not applied after the first match.
+     *
+     * @param position  long the position to which the moves are applied.
+     * @param predicate the predicate to test the consecutive positions with
+     * @return true if the predicate is true for a consecutive position
+     */
+    default boolean hasConsecutivePosition(long position, LongPredicate predicate) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == checks[move] && predicate.test(position ^ masks[move])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply all possible moves to the given position and pass the canonical form of each resulting position to the consumer.
+     * The symmetric positions of the consecutive positions are not computed from scratch but derived from the symmetric
+     * positions of the given position using the symmetric move masks (one xor per symmetry).
+     *
+     * @param position           long the position to which the moves are applied.
+     * @param symmetricPositions all symmetric positions of position (see {@link #getSymmetricPositions(long, long[])})
+     * @param consumer           receives the canonical forms of all consecutive positions
+     */
+    default void forEachConsecutiveCanonicalPosition(long position, long[] symmetricPositions, LongConsumer consumer) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        long[] symmetricMasks = getSymmetricMoveMasks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == checks[move]) {
+                consumer.accept(canonicalizeMovedPosition(symmetricPositions, symmetricMasks, move));
+            }
+        }
+    }
+
+    /**
+     * Test if the canonical form of at least one consecutive position of the given position matches the predicate.
+     * See {@link #forEachConsecutiveCanonicalPosition(long, long[], LongConsumer)}.
+     *
+     * @param position           long the position to which the moves are applied.
+     * @param symmetricPositions all symmetric positions of position (see {@link #getSymmetricPositions(long, long[])})
+     * @param predicate          the predicate to test the canonical consecutive positions with
+     * @return true if the predicate is true for a canonical consecutive position
+     */
+    default boolean hasConsecutiveCanonicalPosition(long position, long[] symmetricPositions, LongPredicate predicate) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        long[] symmetricMasks = getSymmetricMoveMasks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == checks[move]
+                    && predicate.test(canonicalizeMovedPosition(symmetricPositions, symmetricMasks, move))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply all possible reverse moves (unjumps) to the given position and return the resulting positions.
+     * A reverse move needs a peg at the end of the move and empty start and center holes. It uses the same masks as
+     * the move: position ^ mask moves the peg back and puts a peg on the center hole.
+     *
+     * @param position long the position to which the reverse moves are applied.
+     * @return all preceding positions, i.e. all positions from which the given position is reached with one move
+     */
+    default long[] getPrecedingPositions(long position) {
+        long[] precedingPositions = new long[getMoveMasks().length];
+        int numberOfPrecedingPositions = getPrecedingPositions(position, precedingPositions);
+        return Arrays.copyOf(precedingPositions, numberOfPrecedingPositions);
+    }
+
+    /**
+     * Apply all possible reverse moves to the given position and write the resulting positions to the given buffer
+     * (see {@link #getPrecedingPositions(long)}).
+     *
+     * @param position           long the position to which the reverse moves are applied.
+     * @param precedingPositions buffer for the preceding positions, needs room for one position per move
+     * @return the number of preceding positions written to the buffer
+     */
+    default int getPrecedingPositions(long position, long[] precedingPositions) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        int numberOfPrecedingPositions = 0;
+        for (int move = 0; move < masks.length; move++) {
+            // masked equals the peg at the end of the move (mask ^ check), start and center are empty
+            if ((position & masks[move]) == (masks[move] ^ checks[move])) {
+                precedingPositions[numberOfPrecedingPositions++] = position ^ masks[move];
+            }
+        }
+        return numberOfPrecedingPositions;
+    }
+
+    /**
+     * Apply all possible reverse moves to the given position and pass each resulting position to the consumer.
+     * Allocation free alternative to {@link #getPrecedingPositions(long)}.
+     *
+     * @param position long the position to which the reverse moves are applied.
+     * @param consumer receives all preceding positions
+     */
+    default void forEachPrecedingPosition(long position, LongConsumer consumer) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == (masks[move] ^ checks[move])) {
+                consumer.accept(position ^ masks[move]);
+            }
+        }
+    }
+
+    /**
+     * Apply all possible reverse moves to the given position and pass the canonical form of each resulting position to
+     * the consumer. Like {@link #forEachConsecutiveCanonicalPosition(long, long[], LongConsumer)} the symmetric positions
+     * are derived from the symmetric positions of the given position using the symmetric move masks.
+     *
+     * @param position           long the position to which the reverse moves are applied.
+     * @param symmetricPositions all symmetric positions of position (see {@link #getSymmetricPositions(long, long[])})
+     * @param consumer           receives the canonical forms of all preceding positions
+     */
+    default void forEachPrecedingCanonicalPosition(long position, long[] symmetricPositions, LongConsumer consumer) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        long[] symmetricMasks = getSymmetricMoveMasks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == (masks[move] ^ checks[move])) {
+                consumer.accept(canonicalizeMovedPosition(symmetricPositions, symmetricMasks, move));
+            }
+        }
+    }
+
+    /**
+     * Test if the canonical form of at least one preceding position of the given position matches the predicate.
+     * See {@link #forEachPrecedingCanonicalPosition(long, long[], LongConsumer)}.
+     *
+     * @param position           long the position to which the reverse moves are applied.
+     * @param symmetricPositions all symmetric positions of position (see {@link #getSymmetricPositions(long, long[])})
+     * @param predicate          the predicate to test the canonical preceding positions with
+     * @return true if the predicate is true for a canonical preceding position
+     */
+    default boolean hasPrecedingCanonicalPosition(long position, long[] symmetricPositions, LongPredicate predicate) {
+        long[] masks = getMoveMasks();
+        long[] checks = getMoveChecks();
+        long[] symmetricMasks = getSymmetricMoveMasks();
+        for (int move = 0; move < masks.length; move++) {
+            if ((position & masks[move]) == (masks[move] ^ checks[move])
+                    && predicate.test(canonicalizeMovedPosition(symmetricPositions, symmetricMasks, move))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long canonicalizeMovedPosition(long[] symmetricPositions, long[] symmetricMasks, int move) {
+        int offset = move * symmetricPositions.length;
+        long canonicalPosition = symmetricPositions[0] ^ symmetricMasks[offset];
+        for (int symmetry = 1; symmetry < symmetricPositions.length; symmetry++) {
+            long symmetricPosition = symmetricPositions[symmetry] ^ symmetricMasks[offset + symmetry];
+            if (symmetricPosition < canonicalPosition) {
+                canonicalPosition = symmetricPosition;
+            }
+        }
+        return canonicalPosition;
     }
 
     /**
@@ -15,11 +15,41 @@ public class BoardDataHolder {
     private final PositionRenderer positionRenderer;
     private final List<Move> moves = new ArrayList<>();
     private final Set<Long> connectedMoveMasks = new HashSet<>();
+    // primitive move tables (same order as moves) used when expanding positions
+    private final long[] moveMasks;
+    private final long[] moveChecks;
+    private final PositionCompressor positionCompressor;
+    private final PositionClassifier positionClassifier;
+    private SymmetryTable symmetryTable;
+    // symmetric move masks: index move * numberOfSymmetries + symmetry
+    private long[] symmetricMoveMasks;
 
     public BoardDataHolder(BitManipulator bitManipulator, PositionRenderer positionRenderer, Board board) {
         this.bitManipulator = bitManipulator;
         this.positionRenderer = positionRenderer;
         board.assembleMoves(moves, connectedMoveMasks);
+        moveMasks = moves.stream().mapToLong(Move::getMask).toArray();
+        moveChecks = moves.stream().mapToLong(Move::getCheck).toArray();
+        positionCompressor = new PositionCompressor(board.getLayout());
+        positionClassifier = new PositionClassifier(board.getLayout(), moveMasks);
+    }
+
+    /**
+     * Assemble the lookup tables for symmetric positions and the symmetric masks of all moves.
+     * Boards compute symmetric positions using this data holder, i.e. call this method after the
+     * board has been assigned its data holder.
+     *
+     * @param board the board which defines the symmetries
+     */
+    public void assembleSymmetryTable(Board board) {
+        symmetryTable = new SymmetryTable(board);
+        int numberOfSymmetries = symmetryTable.getNumberOfSymmetries();
+        symmetricMoveMasks = new long[moveMasks.length * numberOfSymmetries];
+        for (int move = 0; move < moveMasks.length; move++) {
+            for (int symmetry = 0; symmetry < numberOfSymmetries; symmetry++) {
+                symmetricMoveMasks[move * numberOfSymmetries + symmetry] = symmetryTable.transform(symmetry, moveMasks[move]);
+            }
+        }
     }
 
     public BitManipulator getBitManipulator() {
@@ -37,4 +67,28 @@ public class BoardDataHolder {
     public Set<Long> getConnectedMoveMasks() {
         return connectedMoveMasks;
     }
+
+    public SymmetryTable getSymmetryTable() {
+        return symmetryTable;
+    }
+
+    public PositionCompressor getPositionCompressor() {
+        return positionCompressor;
+    }
+
+    public PositionClassifier getPositionClassifier() {
+        return positionClassifier;
+    }
+
+    public long[] getSymmetricMoveMasks() {
+        return symmetricMoveMasks;
+    }
+
+    public long[] getMoveMasks() {
+        return moveMasks;
+    }
+
+    public long[] getMoveChecks() {
+        return moveChecks;
+    }
 }
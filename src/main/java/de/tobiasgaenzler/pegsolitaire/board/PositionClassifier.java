@@ -0,0 +1,101 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Position classes (parity invariants): a move toggles the three holes of its mask, i.e. the parity of the number of
+ * pegs on a set of holes M does not change if every move mask contains an even number of holes of M. These sets are
+ * the solutions of a linear system over GF(2) (one equation per move), any basis M1 ... Mk of the solutions defines
+ * the class of a position: bit i of the class is the parity of the number of pegs on Mi. Moves (and reverse moves)
+ * do not change the class, hence a position can only reach positions of the same class.
+ * E.g. the English board has four invariants (16 classes, compare the classic diagonal counting arguments).
+ * The class is computed with one popcount per invariant.
+ */
+public class PositionClassifier {
+    private final long[] invariantMasks;
+    // classes of all positions with one peg (bit set: there is a position with one peg of this class)
+    private final long onePegClasses;
+
+    /**
+     * @param layout    the holes of the board
+     * @param moveMasks the masks of all moves of the board
+     */
+    public PositionClassifier(long layout, long[] moveMasks) {
+        invariantMasks = findInvariantMasks(layout, moveMasks);
+        if (invariantMasks.length >= Long.SIZE) {
+            throw new IllegalArgumentException("Too many position classes: 2^" + invariantMasks.length);
+        }
+        long classes = 0L;
+        for (long holes = layout; holes != 0L; holes &= holes - 1L) {
+            classes |= 1L << getPositionClass(Long.lowestOneBit(holes));
+        }
+        onePegClasses = classes;
+    }
+
+    /**
+     * @return the class of the position (one bit per invariant)
+     */
+    public int getPositionClass(long position) {
+        int positionClass = 0;
+        for (int invariant = 0; invariant < invariantMasks.length; invariant++) {
+            positionClass |= (Long.bitCount(position & invariantMasks[invariant]) & 1) << invariant;
+        }
+        return positionClass;
+    }
+
+    /**
+     * @return true if there is a position with one peg of the same class as the position
+     */
+    public boolean isOnePegClass(long position) {
+        return (onePegClasses & (1L << getPositionClass(position))) != 0L;
+    }
+
+    /**
+     * @return the sets of holes with invariant parity (basis)
+     */
+    public long[] getInvariantMasks() {
+        return invariantMasks.clone();
+    }
+
+    /**
+     * Solve the linear system mask(move) · M = 0 over GF(2) for all moves (Gaussian elimination on the move masks,
+     * one basis vector per free hole).
+     */
+    private static long[] findInvariantMasks(long layout, long[] moveMasks) {
+        // reduced rows and their pivot bits (reduced row echelon form)
+        List<Long> rows = new ArrayList<>();
+        List<Long> pivots = new ArrayList<>();
+        for (long moveMask : moveMasks) {
+            long row = moveMask;
+            for (int i = 0; i < rows.size(); i++) {
+                if ((row & pivots.get(i)) != 0L) {
+                    row ^= rows.get(i);
+                }
+            }
+            if (row != 0L) {
+                long pivot = Long.lowestOneBit(row);
+                for (int i = 0; i < rows.size(); i++) {
+                    if ((rows.get(i) & pivot) != 0L) {
+                        rows.set(i, rows.get(i) ^ row);
+                    }
+                }
+                rows.add(row);
+                pivots.add(pivot);
+            }
+        }
+        long pivotBits = pivots.stream().mapToLong(Long::longValue).reduce(0L, (a, b) -> a | b);
+        List<Long> invariantMasks = new ArrayList<>();
+        for (long freeHoles = layout & ~pivotBits; freeHoles != 0L; freeHoles &= freeHoles - 1L) {
+            long freeHole = Long.lowestOneBit(freeHoles);
+            long invariantMask = freeHole;
+            for (int i = 0; i < rows.size(); i++) {
+                if ((rows.get(i) & freeHole) != 0L) {
+                    invariantMask |= pivots.get(i);
+                }
+            }
+            invariantMasks.add(invariantMask);
+        }
+        return invariantMasks.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,100 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+/**
+ * Maps positions to a dense representation where only the holes of the layout are used, i.e. the bits of the layout
+ * are gathered into the bits 0 ... H-1 (H: number of holes, order of the bits is kept). E.g. positions of the
+ * English board (33 holes on a 7x7 grid) fit into 33 bits instead of 49 bits.
+ * <p>
+ * Both directions use lookup tables per byte: the dense bits of a byte of the position only depend on the byte value
+ * and the position of the byte (and vice versa). Since the order of the bits is kept, the dense representation
+ * preserves the order of positions, i.e. sorted positions are still sorted after compression.
+ */
+public class PositionCompressor {
+    private static final int BITS_PER_CHUNK = 8;
+    private static final int CHUNK_SIZE = 1 << BITS_PER_CHUNK;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int numberOfHoles;
+    private final int numberOfChunks;
+    private final int numberOfDenseChunks;
+    // compressTable[chunk * 256 + byte value of the position] = dense bits
+    private final long[] compressTable;
+    // expandTable[dense chunk * 256 + byte value of the dense position] = bits of the position
+    private final long[] expandTable;
+
+    public PositionCompressor(long layout) {
+        numberOfHoles = Long.bitCount(layout);
+        numberOfChunks = (64 - Long.numberOfLeadingZeros(layout) + BITS_PER_CHUNK - 1) / BITS_PER_CHUNK;
+        numberOfDenseChunks = (numberOfHoles + BITS_PER_CHUNK - 1) / BITS_PER_CHUNK;
+        // holeBits[hole] = bit of the hole in a position
+        long[] holeBits = new long[numberOfHoles];
+        for (int bit = 0, hole = 0; bit < Long.SIZE; bit++) {
+            if ((layout & (1L << bit)) != 0L) {
+                holeBits[hole++] = 1L << bit;
+            }
+        }
+        compressTable = new long[numberOfChunks * CHUNK_SIZE];
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            int holesBefore = Long.bitCount(layout & ((1L << (chunk * BITS_PER_CHUNK)) - 1L));
+            int layoutChunk = (int) (layout >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK;
+            for (int value = 0; value < CHUNK_SIZE; value++) {
+                long denseBits = 0L;
+                int hole = holesBefore;
+                for (int bit = 0; bit < BITS_PER_CHUNK; bit++) {
+                    if ((layoutChunk & (1 << bit)) != 0) {
+                        if ((value & (1 << bit)) != 0) {
+                            denseBits |= 1L << hole;
+                        }
+                        hole++;
+                    }
+                }
+                compressTable[chunk * CHUNK_SIZE + value] = denseBits;
+            }
+        }
+        expandTable = new long[numberOfDenseChunks * CHUNK_SIZE];
+        for (int chunk = 0; chunk < numberOfDenseChunks; chunk++) {
+            for (int value = 0; value < CHUNK_SIZE; value++) {
+                long position = 0L;
+                for (int bit = 0; bit < BITS_PER_CHUNK && chunk * BITS_PER_CHUNK + bit < numberOfHoles; bit++) {
+                    if ((value & (1 << bit)) != 0) {
+                        position |= holeBits[chunk * BITS_PER_CHUNK + bit];
+                    }
+                }
+                expandTable[chunk * CHUNK_SIZE + value] = position;
+            }
+        }
+    }
+
+    /**
+     * @return number of holes of the layout, i.e. number of bits of a dense position
+     */
+    public int getNumberOfHoles() {
+        return numberOfHoles;
+    }
+
+    /**
+     * @param position a position on the board (bits outside the layout are ignored)
+     * @return the dense representation of the position
+     */
+    public long compress(long position) {
+        long denseBits = 0L;
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            denseBits |= compressTable[(chunk << BITS_PER_CHUNK) | ((int) (position >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK)];
+        }
+        return denseBits;
+    }
+
+    /**
+     * Inverse of {@link #compress(long)}.
+     *
+     * @param denseBits dense representation of a position
+     * @return the position
+     */
+    public long expand(long denseBits) {
+        long position = 0L;
+        for (int chunk = 0; chunk < numberOfDenseChunks; chunk++) {
+            position |= expandTable[(chunk << BITS_PER_CHUNK) | ((int) (denseBits >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK)];
+        }
+        return position;
+    }
+}
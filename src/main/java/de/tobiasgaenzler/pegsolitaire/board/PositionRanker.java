@@ -0,0 +1,120 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+/**
+ * Ranks positions with the same number of pegs using the combinatorial number system, i.e. the positions with k pegs
+ * of a board with H holes are mapped one to one to [0, C(H, k)).
+ * The holes of the layout are numbered 0 ... H-1 (in the order of the bits). A position with pegs in holes
+ * c_1 &lt; c_2 &lt; ... &lt; c_k has the rank C(c_1, 1) + C(c_2, 2) + ... + C(c_k, k).
+ * <p>
+ * The rank is computed byte by byte using a lookup table: the contribution of a byte depends on the byte value,
+ * the position of the byte and the number of pegs in the lower bytes only.
+ * Unranking determines the holes with pegs, i.e. the dense representation of the position
+ * (see {@link Board#compress(long)}), which is expanded to the position by the board.
+ */
+public class PositionRanker {
+    private static final int BITS_PER_CHUNK = 8;
+    private static final int CHUNK_SIZE = 1 << BITS_PER_CHUNK;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Board board;
+    private final int numberOfHoles;
+    private final int numberOfChunks;
+    // binomialCoefficients[n][k] = C(n, k)
+    private final long[][] binomialCoefficients;
+    // rankTable[(chunk * (numberOfHoles + 1) + pegs in lower chunks) * 256 + byte value] = contribution to rank
+    private final long[] rankTable;
+
+    public PositionRanker(Board board) {
+        this.board = board;
+        long layout = board.getLayout();
+        numberOfHoles = Long.bitCount(layout);
+        numberOfChunks = (64 - Long.numberOfLeadingZeros(layout) + BITS_PER_CHUNK - 1) / BITS_PER_CHUNK;
+        binomialCoefficients = new long[numberOfHoles + 1][numberOfHoles + 2];
+        for (int n = 0; n <= numberOfHoles; n++) {
+            binomialCoefficients[n][0] = 1L;
+            for (int k = 1; k <= n; k++) {
+                binomialCoefficients[n][k] = binomialCoefficients[n - 1][k - 1] + (k < n ? binomialCoefficients[n - 1][k] : 0L);
+            }
+        }
+        // number the holes and remember the hole of each bit
+        int[] holeOfBit = new int[numberOfChunks * BITS_PER_CHUNK];
+        for (int bit = 0, hole = 0; bit < holeOfBit.length; bit++) {
+            if ((layout & (1L << bit)) != 0L) {
+                holeOfBit[bit] = hole++;
+            }
+        }
+        rankTable = new long[numberOfChunks * (numberOfHoles + 1) * CHUNK_SIZE];
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            int layoutChunk = (int) (layout >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK;
+            for (int pegsBefore = 0; pegsBefore <= numberOfHoles; pegsBefore++) {
+                for (int value = 0; value < CHUNK_SIZE; value++) {
+                    long rank = 0L;
+                    int pegs = pegsBefore;
+                    for (int bit = 0; bit < BITS_PER_CHUNK; bit++) {
+                        if ((value & layoutChunk & (1 << bit)) != 0 && pegs < numberOfHoles) {
+                            pegs++;
+                            rank += binomial(holeOfBit[chunk * BITS_PER_CHUNK + bit], pegs);
+                        }
+                    }
+                    rankTable[(chunk * (numberOfHoles + 1) + pegsBefore) * CHUNK_SIZE + value] = rank;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of holes of the board
+     */
+    public int getNumberOfHoles() {
+        return numberOfHoles;
+    }
+
+    /**
+     * @param pegs number of pegs
+     * @return number of positions with the given number of pegs i.e. C(H, pegs)
+     */
+    public long getNumberOfPositions(int pegs) {
+        return binomial(numberOfHoles, pegs);
+    }
+
+    /**
+     * @param position a position on the board
+     * @return the rank of the position among all positions with the same number of pegs
+     */
+    public long rank(long position) {
+        long rank = 0L;
+        int pegs = 0;
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            int value = (int) (position >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK;
+            rank += rankTable[(chunk * (numberOfHoles + 1) + pegs) * CHUNK_SIZE + value];
+            pegs += Integer.bitCount(value);
+        }
+        return rank;
+    }
+
+    /**
+     * Inverse of {@link #rank(long)}.
+     *
+     * @param pegs number of pegs of the position
+     * @param rank rank of the position
+     * @return the position
+     */
+    public long unrank(int pegs, long rank) {
+        long denseBits = 0L;
+        int hole = numberOfHoles - 1;
+        for (int k = pegs; k > 0; k--) {
+            // largest hole with C(hole, k) <= rank
+            while (binomialCoefficients[hole][k] > rank) {
+                hole--;
+            }
+            rank -= binomialCoefficients[hole][k];
+            denseBits |= 1L << hole;
+            hole--;
+        }
+        return board.expand(denseBits);
+    }
+
+    private long binomial(int n, int k) {
+        return k > n ? 0L : binomialCoefficients[n][k];
+    }
+}
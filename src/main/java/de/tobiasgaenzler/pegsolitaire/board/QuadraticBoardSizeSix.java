@@ -26,6 +26,7 @@ public class QuadraticBoardSizeSix implements Board {
     public QuadraticBoardSizeSix(BitManipulator bitManipulator, PositionRenderer positionRenderer) {
         super();
         boardDataHolder = new BoardDataHolder(bitManipulator, positionRenderer, this);
+        boardDataHolder.assembleSymmetryTable(this);
     }
 
     @Override
@@ -38,6 +39,26 @@ public class QuadraticBoardSizeSix implements Board {
         return boardDataHolder.getMoves();
     }
 
+    @Override
+    public long[] getMoveMasks() {
+        return boardDataHolder.getMoveMasks();
+    }
+
+    @Override
+    public long[] getMoveChecks() {
+        return boardDataHolder.getMoveChecks();
+    }
+
+    @Override
+    public long[] getSymmetricMoveMasks() {
+        return boardDataHolder.getSymmetricMoveMasks();
+    }
+
+    @Override
+    public PositionClassifier getPositionClassifier() {
+        return boardDataHolder.getPositionClassifier();
+    }
+
     @Override
     public Set<Long> getConnectedMoveMasks() {
         return boardDataHolder.getConnectedMoveMasks();
@@ -110,6 +131,31 @@ public class QuadraticBoardSizeSix implements Board {
         return symmetricPositions;
     }
 
+    @Override
+    public void getSymmetricPositions(long position, long[] symmetricPositions) {
+        boardDataHolder.getSymmetryTable().getSymmetricPositions(position, symmetricPositions);
+    }
+
+    @Override
+    public int getNumberOfSymmetries() {
+        return boardDataHolder.getSymmetryTable().getNumberOfSymmetries();
+    }
+
+    @Override
+    public long canonicalize(long position) {
+        return boardDataHolder.getSymmetryTable().canonicalize(position);
+    }
+
+    @Override
+    public long compress(long position) {
+        return boardDataHolder.getPositionCompressor().compress(position);
+    }
+
+    @Override
+    public long expand(long denseBits) {
+        return boardDataHolder.getPositionCompressor().expand(denseBits);
+    }
+
     @Override
     public String getName() {
         return NAME;
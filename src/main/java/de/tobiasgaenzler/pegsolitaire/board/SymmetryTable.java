@@ -0,0 +1,93 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+/**
+ * Lookup tables for the symmetric positions of a board.
+ * All symmetries (rotations and mirrors) are permutations of bits, i.e. the symmetric position of a position
+ * is the combination (or) of the symmetric positions of its single bytes.
+ * For every symmetry and every byte (chunk) of a position all 256 possible results are precomputed once,
+ * which reduces the computation of a symmetric position to a few table lookups.
+ */
+public class SymmetryTable {
+    private static final int BITS_PER_CHUNK = 8;
+    private static final int CHUNK_SIZE = 1 << BITS_PER_CHUNK;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int numberOfChunks;
+    private final int numberOfSymmetries;
+    // tables[symmetry][chunk * 256 + byte value] = symmetric bits of the byte value at chunk
+    private final long[][] tables;
+
+    /**
+     * Assemble the lookup tables using {@link Board#getSymmetricPositions(long)} for all bytes of the layout.
+     *
+     * @param board the board which defines the symmetries (and the layout)
+     */
+    public SymmetryTable(Board board) {
+        long layout = board.getLayout();
+        numberOfChunks = (64 - Long.numberOfLeadingZeros(layout) + BITS_PER_CHUNK - 1) / BITS_PER_CHUNK;
+        numberOfSymmetries = board.getSymmetricPositions(layout).length;
+        tables = new long[numberOfSymmetries][numberOfChunks * CHUNK_SIZE];
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            for (int value = 0; value < CHUNK_SIZE; value++) {
+                long position = ((long) value << (chunk * BITS_PER_CHUNK)) & layout;
+                long[] symmetricPositions = board.getSymmetricPositions(position);
+                for (int symmetry = 0; symmetry < numberOfSymmetries; symmetry++) {
+                    tables[symmetry][chunk * CHUNK_SIZE + value] = symmetricPositions[symmetry];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of symmetries (including identity), same as the length of {@link Board#getSymmetricPositions(long)}
+     */
+    public int getNumberOfSymmetries() {
+        return numberOfSymmetries;
+    }
+
+    /**
+     * Apply one symmetry to the position.
+     *
+     * @param symmetry index of the symmetry (same order as {@link Board#getSymmetricPositions(long)})
+     * @param position the position to transform
+     * @return the symmetric position
+     */
+    public long transform(int symmetry, long position) {
+        long[] table = tables[symmetry];
+        long symmetricPosition = 0L;
+        for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+            symmetricPosition |= table[(chunk << BITS_PER_CHUNK) | (int) ((position >>> (chunk * BITS_PER_CHUNK)) & CHUNK_MASK)];
+        }
+        return symmetricPosition;
+    }
+
+    /**
+     * Write all symmetric positions of the position to the given buffer (same order as {@link Board#getSymmetricPositions(long)}).
+     *
+     * @param position           the position to transform
+     * @param symmetricPositions buffer with room for {@link #getNumberOfSymmetries()} positions
+     */
+    public void getSymmetricPositions(long position, long[] symmetricPositions) {
+        symmetricPositions[0] = position;
+        for (int symmetry = 1; symmetry < numberOfSymmetries; symmetry++) {
+            symmetricPositions[symmetry] = transform(symmetry, position);
+        }
+    }
+
+    /**
+     * Return the canonical form of the position, i.e. the smallest of all symmetric positions.
+     *
+     * @param position the position
+     * @return the minimum of all symmetric positions
+     */
+    public long canonicalize(long position) {
+        long canonicalPosition = position;
+        for (int symmetry = 1; symmetry < numberOfSymmetries; symmetry++) {
+            long symmetricPosition = transform(symmetry, position);
+            if (symmetricPosition < canonicalPosition) {
+                canonicalPosition = symmetricPosition;
+            }
+        }
+        return canonicalPosition;
+    }
+}
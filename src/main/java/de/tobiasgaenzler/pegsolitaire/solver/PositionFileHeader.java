@@ -0,0 +1,166 @@
+package de.tobiasgaenzler.pegsolitaire.solver;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Header of compact position files: format version, board (name and layout), number of pegs, number of positions,
+ * flags describing the positions and a CRC32 checksum of the positions (the data following the header).
+ * The header allows to validate files of an interrupted run before they are reused.
+ */
+public class PositionFileHeader {
+    public static final int VERSION = 1;
+    /**
+     * positions are sorted (ascending)
+     */
+    public static final int SORTED = 1;
+    /**
+     * positions are canonical, i.e. there are no symmetric duplicates
+     */
+    public static final int CANONICAL = 1 << 1;
+    /**
+     * file contains winning positions (reachable positions otherwise)
+     */
+    public static final int WINNING = 1 << 2;
+    private static final int MAGIC = 0x50454753; // "PEGS"
+    // magic, version, flags, length of board name
+    private static final int PREFIX_SIZE = Integer.BYTES + 3 * Short.BYTES;
+    // layout, pegs, bytes per position, count, checksum
+    private static final int SUFFIX_SIZE = Long.BYTES + 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private final String boardName;
+    private final long layout;
+    private final int pegs;
+    private final int bytesPerPosition;
+    private final int flags;
+    private final long count;
+    private final long checksum;
+
+    public PositionFileHeader(String boardName, long layout, int pegs, int bytesPerPosition, int flags, long count, long checksum) {
+        this.boardName = boardName;
+        this.layout = layout;
+        this.pegs = pegs;
+        this.bytesPerPosition = bytesPerPosition;
+        this.flags = flags;
+        this.count = count;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Read the header at the beginning of the file.
+     *
+     * @param channel channel of the file
+     * @return the header
+     * @throws IOException if the file does not start with a valid header (e.g. values out of range)
+     */
+    public static PositionFileHeader read(FileChannel channel) throws IOException {
+        ByteBuffer prefix = readFully(channel, 0L, PREFIX_SIZE);
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException("Not a position file");
+        }
+        int version = prefix.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of position file: " + version);
+        }
+        int flags = prefix.getShort();
+        int nameLength = prefix.getShort();
+        if (nameLength < 0) {
+            throw new IOException("Invalid length of board name in header: " + nameLength);
+        }
+        byte[] name = new byte[nameLength];
+        ByteBuffer rest = readFully(channel, PREFIX_SIZE, name.length + SUFFIX_SIZE);
+        rest.get(name);
+        long layout = rest.getLong();
+        int pegs = rest.getInt();
+        if (pegs < 0 || pegs > Long.SIZE) {
+            throw new IOException("Invalid number of pegs in header: " + pegs);
+        }
+        int bytesPerPosition = rest.getInt();
+        if (bytesPerPosition < 1 || bytesPerPosition > Long.BYTES) {
+            throw new IOException("Invalid number of bytes per position in header: " + bytesPerPosition);
+        }
+        long count = rest.getLong();
+        // the size of the positions (count * bytesPerPosition) must not overflow
+        if (count < 0L || count > Long.MAX_VALUE / Long.BYTES) {
+            throw new IOException("Invalid number of positions in header: " + count);
+        }
+        return new PositionFileHeader(new String(name, StandardCharsets.UTF_8), layout, pegs, bytesPerPosition, flags, count, rest.getLong());
+    }
+
+    /**
+     * Write the header at the beginning of the file.
+     *
+     * @param channel channel of the file
+     */
+    public void write(FileChannel channel) throws IOException {
+        byte[] name = boardName.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(getSize());
+        buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) flags).putShort((short) name.length).put(name)
+                .putLong(layout).putInt(pegs).putInt(bytesPerPosition).putLong(count).putLong(checksum)
+                .flip();
+        for (long offset = 0L; buffer.hasRemaining(); ) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * @return number of bytes of the header, i.e. offset of the positions in the file
+     */
+    public int getSize() {
+        return PREFIX_SIZE + boardName.getBytes(StandardCharsets.UTF_8).length + SUFFIX_SIZE;
+    }
+
+    /**
+     * @param board the board
+     * @return true if the positions of the file belong to the board
+     */
+    public boolean matches(Board board) {
+        return boardName.equals(board.getName()) && layout == board.getLayout();
+    }
+
+    public String getBoardName() {
+        return boardName;
+    }
+
+    public long getLayout() {
+        return layout;
+    }
+
+    public int getPegs() {
+        return pegs;
+    }
+
+    public int getBytesPerPosition() {
+        return bytesPerPosition;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) == flag;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file in header");
+            }
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,72 @@
+package de.tobiasgaenzler.pegsolitaire.solver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growing byte buffer for the txt format of positions (decimal followed by {@link SerializationService#POSITION_SEPARATOR}).
+ * Positions are formatted directly into the buffer, i.e. no strings or byte arrays are created per position.
+ * Not thread safe.
+ */
+class PositionTextBuffer {
+    // "-9223372036854775808,"
+    static final int MAX_POSITION_LENGTH = 21;
+    private static final byte SEPARATOR = (byte) SerializationService.POSITION_SEPARATOR.charAt(0);
+    private static final byte[] MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes();
+
+    private byte[] bytes;
+    private int size = 0;
+
+    /**
+     * @param numberOfPositions expected number of positions (the buffer grows if needed)
+     */
+    PositionTextBuffer(int numberOfPositions) {
+        bytes = new byte[Math.max(MAX_POSITION_LENGTH, numberOfPositions * MAX_POSITION_LENGTH)];
+    }
+
+    void append(long position) {
+        if (bytes.length - size < MAX_POSITION_LENGTH) {
+            bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+        }
+        if (position == Long.MIN_VALUE) {
+            System.arraycopy(MIN_VALUE, 0, bytes, size, MIN_VALUE.length);
+            size += MIN_VALUE.length;
+        } else {
+            if (position < 0L) {
+                bytes[size++] = '-';
+                position = -position;
+            }
+            int end = size + numberOfDigits(position);
+            for (int i = end - 1; i >= size; i--) {
+                bytes[i] = (byte) ('0' + position % 10L);
+                position /= 10L;
+            }
+            size = end;
+        }
+        bytes[size++] = SEPARATOR;
+    }
+
+    /**
+     * @return number of bytes in the buffer
+     */
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes, 0, size);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private static int numberOfDigits(long value) {
+        int digits = 1;
+        for (long limit = 10L; digits < 19 && value >= limit; limit *= 10L) {
+            digits++;
+        }
+        return digits;
+    }
+}
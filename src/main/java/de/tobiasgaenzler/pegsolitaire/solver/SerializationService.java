@@ -1,25 +1,77 @@
 package de.tobiasgaenzler.pegsolitaire.solver;
 
 import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.DeltaLongFileReader;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionFileFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.zip.CRC32;
 
 @Component
 public class SerializationService {
     private final static Logger logger = LoggerFactory.getLogger(SerializationService.class);
     public static final String POSITION_SEPARATOR = ",";
+    private static final String COMPACT_FILE_EXTENSION = ".cbin";
+    private static final Set<StandardOpenOption> WRITE_OPTIONS = Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    // number of positions which are written with one bulk write
+    private static final int BLOCK_POSITIONS = 1 << 13;
+    // number of positions per mapped chunk, chunks are read concurrently
+    private static final int CHUNK_POSITIONS = 1 << 16;
+    // number of bytes per mapped chunk of txt files, chunks are parsed concurrently
+    private static final int TXT_CHUNK_BYTES = 1 << 20;
+    private static final byte POSITION_SEPARATOR_BYTE = (byte) POSITION_SEPARATOR.charAt(0);
+    private final PositionFileFormat positionFileFormat;
+
+    /**
+     * Use raw position files (8 bytes per position).
+     */
+    public SerializationService() {
+        this(PositionFileFormat.RAW.getName());
+    }
+
+    /**
+     * @param positionFileFormat format of sorted position files (see {@link PositionFileFormat}), e.g. "delta"
+     */
+    @Autowired
+    public SerializationService(@Value("${positionFileFormat:raw}") String positionFileFormat) {
+        this.positionFileFormat = PositionFileFormat.fromName(positionFileFormat);
+    }
+
+    /**
+     * @return the format of files of sorted positions written by strategies which sort positions
+     */
+    public PositionFileFormat getPositionFileFormat() {
+        return positionFileFormat;
+    }
 
     /**
      * Write set of positions to file. Binary file format is used because it is faster than using strings
@@ -30,51 +82,347 @@ public class SerializationService {
      * @return the file path of the file containing the positions
      */
     public Path storePositionsInBinaryFile(Board board, Set<Long> positions, int numberOfRemainingPieces) {
+        return storePositionsInBinaryFile(board, positions.stream().mapToLong(Long::longValue).iterator(), numberOfRemainingPieces);
+    }
+
+    /**
+     * Write set of positions to file. Binary file format is used because it is faster than using strings
+     *
+     * @param board                   only used for filename
+     * @param positions               set of positions to write to file as binary data
+     * @param numberOfRemainingPieces only used for filename
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInBinaryFile(Board board, LongSet positions, int numberOfRemainingPieces) {
+        return storePositionsInBinaryFile(board, positions.stream().iterator(), numberOfRemainingPieces);
+    }
+
+    private Path storePositionsInBinaryFile(Board board, PrimitiveIterator.OfLong positions, int numberOfRemainingPieces) {
         Path positionsFilePath = getBinaryPositionFilePath(board, numberOfRemainingPieces);
         logger.debug("Storing positions for {} pegs in file '{}'", numberOfRemainingPieces, positionsFilePath);
         Instant start = Instant.now();
-        try (FileOutputStream fileOutputStream = new FileOutputStream(positionsFilePath.getFileName().toString());
-             DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream))
-        ) {
-            positions.forEach(position -> {
-                try {
-                    outStream.writeLong(position);
-                } catch (IOException e) {
-                    logger.error("Could not write to file {}:  {}", positionsFilePath, e.getMessage());
-                    throw new RuntimeException(e);
+        try (FileChannel channel = FileChannel.open(positionsFilePath, WRITE_OPTIONS)) {
+            // positions are collected in a block and copied to the (big endian) buffer with one bulk put
+            long[] block = new long[BLOCK_POSITIONS];
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_POSITIONS * Long.BYTES);
+            LongBuffer longBuffer = buffer.asLongBuffer();
+            int size = 0;
+            while (positions.hasNext()) {
+                block[size++] = positions.nextLong();
+                if (size == BLOCK_POSITIONS || !positions.hasNext()) {
+                    longBuffer.clear();
+                    longBuffer.put(block, 0, size);
+                    buffer.clear().limit(size * Long.BYTES);
+                    writeFully(channel, buffer);
+                    size = 0;
                 }
-            });
+            }
         } catch (IOException e) {
-            logger.error("Could not open file '{}' for writing:  {}", positionsFilePath, e.getMessage());
+            logger.error("Could not write to file '{}':  {}", positionsFilePath, e.getMessage());
             throw new RuntimeException(e);
         }
         logger.debug("Storing positions took {} ms", Duration.between(start, Instant.now()).toMillis());
         return positionsFilePath;
     }
 
-    @SuppressWarnings("InfiniteLoopStatement") // for performance reasons we use an infinite loop here
     public Set<Long> readPositionsFromBinaryFile(Path path) {
-        logger.debug("Reading positions from file {}", path);
         Set<Long> positions = new HashSet<>();
+        readPositionsFromBinaryFile(path, positions::add, false);
+        return positions;
+    }
+
+    /**
+     * Read positions from binary file into the given set.
+     * The file is split into chunks which are mapped into memory and added to the set in parallel,
+     * i.e. the set has to support concurrent insertion (like all {@link LongSet} implementations).
+     *
+     * @param path      path to the binary positions file
+     * @param positions the set to add the positions to
+     * @return the given set
+     */
+    public LongSet readPositionsFromBinaryFile(Path path, LongSet positions) {
+        readPositionsFromBinaryFile(path, positions::add, true);
+        return positions;
+    }
+
+    private void readPositionsFromBinaryFile(Path path, LongConsumer positionConsumer, boolean parallel) {
+        logger.debug("Reading positions from file {}", path);
         Instant start = Instant.now();
+        forEachMappedChunk(path, Long.BYTES, parallel, chunk -> decodeBinaryChunk(chunk, positionConsumer));
+        logger.debug("Reading positions took {} ms", Duration.between(start, Instant.now()).toMillis());
+    }
+
+    private void decodeBinaryChunk(ByteBuffer chunk, LongConsumer positionConsumer) {
+        LongBuffer positions = chunk.asLongBuffer();
+        while (positions.hasRemaining()) {
+            positionConsumer.accept(positions.get());
+        }
+    }
+
+    /**
+     * Write set of positions to file using the dense representation of the positions (see {@link Board#compress(long)}).
+     * Each position is stored little endian with the minimal number of bytes for the holes of the board,
+     * e.g. 5 bytes instead of 8 bytes for positions of the English board.
+     * The file starts with a header (see {@link PositionFileHeader}) which contains the number of positions and the
+     * checksum of the positions. The file is written to a temporary file which replaces the file when it is complete,
+     * i.e. an interrupted write does not destroy the previous content of the file.
+     *
+     * @param board                   the board the positions live on (used for filename)
+     * @param positions               set of positions to write to file
+     * @param numberOfRemainingPieces number of pegs of the positions (used for filename)
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInCompactFile(Board board, LongSet positions, int numberOfRemainingPieces) {
+        return storePositionsInCompactFile(board, positions, numberOfRemainingPieces, 0);
+    }
 
-        try (BufferedInputStream fileInputStream = new BufferedInputStream(new FileInputStream(path.toFile()));
-             DataInputStream reader = new DataInputStream(fileInputStream)
-        ) {
-            while (true) { // reader.available() is too slow
-                positions.add(reader.readLong());
+    /**
+     * Write set of positions to compact file (see {@link #storePositionsInCompactFile(Board, LongSet, int)}).
+     *
+     * @param board                   the board the positions live on (used for filename)
+     * @param positions               set of positions to write to file
+     * @param numberOfRemainingPieces number of pegs of the positions (used for filename)
+     * @param flags                   flags of the header e.g. {@link PositionFileHeader#CANONICAL}
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInCompactFile(Board board, LongSet positions, int numberOfRemainingPieces, int flags) {
+        Path positionsFilePath = getCompactPositionFilePath(board, numberOfRemainingPieces);
+        logger.debug("Storing positions for {} pegs in file '{}'", numberOfRemainingPieces, positionsFilePath);
+        Instant start = Instant.now();
+        int bytesPerPosition = getBytesPerCompactPosition(board);
+        Path temporaryFilePath = Paths.get(positionsFilePath + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFilePath, WRITE_OPTIONS)) {
+            // the header is written again when the number of positions and the checksum are known
+            PositionFileHeader header = new PositionFileHeader(board.getName(), board.getLayout(), numberOfRemainingPieces,
+                    bytesPerPosition, flags, 0L, 0L);
+            header.write(channel);
+            channel.position(header.getSize());
+            CRC32 checksum = new CRC32();
+            long count = 0L;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_POSITIONS * bytesPerPosition).order(ByteOrder.LITTLE_ENDIAN);
+            PrimitiveIterator.OfLong iterator = positions.stream().iterator();
+            while (iterator.hasNext()) {
+                long denseBits = board.compress(iterator.nextLong());
+                for (int i = 0; i < bytesPerPosition; i++) {
+                    buffer.put((byte) (denseBits >>> (i * Byte.SIZE)));
+                }
+                count++;
+                if (!buffer.hasRemaining() || !iterator.hasNext()) {
+                    buffer.flip();
+                    checksum.update(buffer.duplicate());
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
             }
-        } catch (EOFException e) {
-            logger.debug("reached end of file {}", path);
+            new PositionFileHeader(board.getName(), board.getLayout(), numberOfRemainingPieces, bytesPerPosition, flags,
+                    count, checksum.getValue()).write(channel);
+            channel.force(false);
         } catch (IOException e) {
-            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            logger.error("Could not write to file '{}':  {}", temporaryFilePath, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        try {
+            Files.move(temporaryFilePath, positionsFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Could not write to file '{}':  {}", positionsFilePath, e.getMessage());
             throw new RuntimeException(e);
         }
+        logger.debug("Storing positions took {} ms", Duration.between(start, Instant.now()).toMillis());
+        return positionsFilePath;
+    }
 
-        logger.debug("Reading positions took {} ms", Duration.between(start, Instant.now()).toMillis());
+    /**
+     * Read positions from compact file (see {@link #storePositionsInCompactFile(Board, LongSet, int)}) into the given set.
+     * Like binary files the file is read in parallel chunks.
+     *
+     * @param board     the board the positions live on
+     * @param path      path to the compact positions file
+     * @param positions the set to add the positions to
+     * @return the given set
+     */
+    public LongSet readPositionsFromCompactFile(Board board, Path path, LongSet positions) {
+        readPositionsFromCompactFile(board, path, positions::add, true);
         return positions;
     }
 
+    private void readPositionsFromCompactFile(Board board, Path path, LongConsumer positionConsumer, boolean parallel) {
+        logger.debug("Reading positions from file {}", path);
+        Instant start = Instant.now();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PositionFileHeader header = readCompactFileHeader(board, channel);
+            int bytesPerPosition = header.getBytesPerPosition();
+            forEachMappedChunk(channel, header.getSize(), bytesPerPosition, parallel,
+                    chunk -> decodeCompactChunk(board, chunk, bytesPerPosition, positionConsumer));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        logger.debug("Reading positions took {} ms", Duration.between(start, Instant.now()).toMillis());
+    }
+
+    /**
+     * Stream the positions of a compact file (see {@link #storePositionsInCompactFile(Board, LongSet, int)}) without
+     * loading the file into memory: the file is mapped and decoded chunk by chunk (in file order, use
+     * {@code parallel()} to decode the chunks concurrently). The stream has to be closed to release the file.
+     *
+     * @param board the board the positions live on
+     * @param path  path to the compact positions file
+     * @return stream of the positions
+     */
+    public LongStream streamPositionsFromCompactFile(Board board, Path path) {
+        FileChannel channel = null;
+        PositionFileHeader header;
+        int numberOfChunks;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            header = readCompactFileHeader(board, channel);
+            numberOfChunks = getNumberOfChunks(channel, header.getSize(), header.getBytesPerPosition());
+        } catch (IOException e) {
+            closeQuietly(channel, path);
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        FileChannel compactFileChannel = channel;
+        int bytesPerPosition = header.getBytesPerPosition();
+        return IntStream.range(0, numberOfChunks)
+                .mapToObj(chunk -> {
+                    LongStream.Builder positions = LongStream.builder();
+                    decodeCompactChunk(board, mapChunk(compactFileChannel, header.getSize(), bytesPerPosition, chunk), bytesPerPosition, positions);
+                    return positions.build();
+                })
+                .flatMapToLong(positions -> positions)
+                .onClose(() -> closeQuietly(compactFileChannel, path));
+    }
+
+    private PositionFileHeader readCompactFileHeader(Board board, FileChannel channel) throws IOException {
+        PositionFileHeader header = PositionFileHeader.read(channel);
+        if (!header.matches(board)) {
+            throw new IOException("Positions of board " + header.getBoardName() + " can not be read for board " + board.getName());
+        }
+        return header;
+    }
+
+    private void decodeCompactChunk(Board board, ByteBuffer chunk, int bytesPerPosition, LongConsumer positionConsumer) {
+        while (chunk.hasRemaining()) {
+            long denseBits = 0L;
+            for (int i = 0; i < bytesPerPosition; i++) {
+                denseBits |= (chunk.get() & 0xFFL) << (i * Byte.SIZE);
+            }
+            positionConsumer.accept(board.expand(denseBits));
+        }
+    }
+
+    /**
+     * Check if the compact file is complete and belongs to the board, i.e. the header is valid, the number of positions
+     * matches the file size and the checksum of the positions is correct.
+     *
+     * @param board the board the positions live on
+     * @param path  path to the compact positions file
+     * @return the header of the file or empty if the file does not exist or is not valid
+     */
+    public Optional<PositionFileHeader> validateCompactFile(Board board, Path path) {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PositionFileHeader header = PositionFileHeader.read(channel);
+            if (!header.matches(board) || channel.size() != header.getSize() + header.getCount() * header.getBytesPerPosition()) {
+                logger.warn("File {} does not belong to board {} or is incomplete", path, board.getName());
+                return Optional.empty();
+            }
+            CRC32 checksum = new CRC32();
+            forEachMappedChunk(channel, header.getSize(), header.getBytesPerPosition(), false, checksum::update);
+            if (checksum.getValue() != header.getChecksum()) {
+                logger.warn("Checksum of file {} is not correct", path);
+                return Optional.empty();
+            }
+            return Optional.of(header);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Could not validate file {}:  {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Map the file chunk by chunk into memory (read only) and pass the chunks to the consumer.
+     * Chunks contain whole positions and are processed by the fork join pool if parallel is true
+     * (in file order otherwise).
+     *
+     * @param path             path to the positions file
+     * @param bytesPerPosition size of a position in the file
+     * @param parallel         process the chunks concurrently
+     * @param chunkConsumer    consumer of the mapped chunks
+     */
+    private void forEachMappedChunk(Path path, int bytesPerPosition, boolean parallel, Consumer<ByteBuffer> chunkConsumer) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            forEachMappedChunk(channel, 0L, bytesPerPosition, parallel, chunkConsumer);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param offset offset of the first position in the file
+     */
+    private void forEachMappedChunk(FileChannel channel, long offset, int bytesPerPosition, boolean parallel, Consumer<ByteBuffer> chunkConsumer) throws IOException {
+        IntStream chunks = IntStream.range(0, getNumberOfChunks(channel, offset, bytesPerPosition));
+        (parallel ? chunks.parallel() : chunks).forEach(chunk -> chunkConsumer.accept(mapChunk(channel, offset, bytesPerPosition, chunk)));
+    }
+
+    /**
+     * @param offset offset of the first position in the file
+     * @return number of chunks of {@link #CHUNK_POSITIONS} positions (the last chunk may be smaller)
+     */
+    private int getNumberOfChunks(FileChannel channel, long offset, int bytesPerPosition) throws IOException {
+        long size = channel.size() - offset;
+        if (size % bytesPerPosition != 0) {
+            throw new IOException("Truncated position at end of file (" + size + " bytes)");
+        }
+        long chunkSize = (long) CHUNK_POSITIONS * bytesPerPosition;
+        return Math.toIntExact((size + chunkSize - 1) / chunkSize);
+    }
+
+    private ByteBuffer mapChunk(FileChannel channel, long offset, int bytesPerPosition, int chunk) {
+        long chunkSize = (long) CHUNK_POSITIONS * bytesPerPosition;
+        long chunkOffset = chunk * chunkSize;
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset + chunkOffset, Math.min(chunkSize, channel.size() - offset - chunkOffset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Convert ranges of positions (e.g. chunks of a file) to txt concurrently and write them in the order of the ranges.
+     * Ranges are converted in batches of a few ranges per thread, the buffers are reused for each batch.
+     *
+     * @param outputStream   the stream to write the txt positions to
+     * @param numberOfRanges number of ranges
+     * @param rangeConverter appends the positions of a range (second argument) to a buffer (first argument)
+     */
+    private void writeTxtRanges(OutputStream outputStream, int numberOfRanges, ObjIntConsumer<PositionTextBuffer> rangeConverter) throws IOException {
+        PositionTextBuffer[] buffers = new PositionTextBuffer[Math.min(numberOfRanges, 4 * ForkJoinPool.getCommonPoolParallelism())];
+        Arrays.setAll(buffers, i -> new PositionTextBuffer(CHUNK_POSITIONS));
+        for (int batchStart = 0; batchStart < numberOfRanges; batchStart += buffers.length) {
+            int start = batchStart;
+            int batchSize = Math.min(buffers.length, numberOfRanges - start);
+            IntStream.range(0, batchSize).parallel().forEach(i -> {
+                buffers[i].clear();
+                rangeConverter.accept(buffers[i], start + i);
+            });
+            for (int i = 0; i < batchSize; i++) {
+                buffers[i].writeTo(outputStream);
+            }
+        }
+    }
+
+    private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
     /**
      * Write set of positions to file. Txt file format (',' as separator) is used for better readability.
      *
@@ -84,13 +432,73 @@ public class SerializationService {
      * @return the file path of the file containing the positions
      */
     public Path storePositionsInTxtFile(Board board, Set<Long> positions, int numberOfRemainingPieces) {
+        return storePositionsInTxtFile(board, positions.stream().mapToLong(Long::longValue).iterator(), numberOfRemainingPieces);
+    }
+
+    /**
+     * Write set of positions to file. Txt file format (',' as separator) is used for better readability.
+     *
+     * @param board                   only used for filename
+     * @param positions               set of positions to write to file as txt data
+     * @param numberOfRemainingPieces only used for filename
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInTxtFile(Board board, LongSet positions, int numberOfRemainingPieces) {
+        return storePositionsInTxtFile(board, positions.stream().iterator(), numberOfRemainingPieces);
+    }
+
+    /**
+     * Write array of positions to file (same order). Txt file format (',' as separator) is used for better readability.
+     * Ranges of the array are converted concurrently.
+     *
+     * @param board                   only used for filename
+     * @param positions               positions to write to file as txt data
+     * @param numberOfRemainingPieces only used for filename
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInTxtFile(Board board, long[] positions, int numberOfRemainingPieces) {
+        Instant start = Instant.now();
+        Path txtFilePath = getTxtPositionFilePath(board, numberOfRemainingPieces);
+        try (OutputStream outputStream = Files.newOutputStream(txtFilePath)) {
+            int numberOfRanges = (positions.length + CHUNK_POSITIONS - 1) / CHUNK_POSITIONS;
+            writeTxtRanges(outputStream, numberOfRanges, (buffer, range) -> {
+                for (int i = range * CHUNK_POSITIONS; i < Math.min(positions.length, (range + 1) * CHUNK_POSITIONS); i++) {
+                    buffer.append(positions[i]);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Could not write to file {}:  {}", txtFilePath, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        logger.debug("Storing positions took {} ms", Duration.between(start, Instant.now()).toMillis());
+        return txtFilePath;
+    }
+
+    /**
+     * Write stream of positions to file (same order). Txt file format (',' as separator) is used for better readability.
+     *
+     * @param board                   only used for filename
+     * @param positions               positions to write to file as txt data
+     * @param numberOfRemainingPieces only used for filename
+     * @return the file path of the file containing the positions
+     */
+    public Path storePositionsInTxtFile(Board board, LongStream positions, int numberOfRemainingPieces) {
+        return storePositionsInTxtFile(board, positions.iterator(), numberOfRemainingPieces);
+    }
+
+    private Path storePositionsInTxtFile(Board board, PrimitiveIterator.OfLong positions, int numberOfRemainingPieces) {
         Instant start = Instant.now();
 
         Path txtFilePath = getTxtPositionFilePath(board, numberOfRemainingPieces);
-        try (BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(txtFilePath.toString()))
-        ) {
-            for (Long position : positions) {
-                bufferedOutputStream.write((position + POSITION_SEPARATOR).getBytes());
+        try (OutputStream outputStream = Files.newOutputStream(txtFilePath)) {
+            // positions are formatted into the buffer which is written when it is full
+            PositionTextBuffer buffer = new PositionTextBuffer(BLOCK_POSITIONS);
+            while (positions.hasNext()) {
+                buffer.append(positions.nextLong());
+                if (buffer.size() >= (BLOCK_POSITIONS - 1) * PositionTextBuffer.MAX_POSITION_LENGTH || !positions.hasNext()) {
+                    buffer.writeTo(outputStream);
+                    buffer.clear();
+                }
             }
         } catch (IOException e) {
             logger.error("Could not write to file {}:  {}", txtFilePath, e.getMessage());
@@ -103,31 +511,25 @@ public class SerializationService {
 
     /**
      * Read binary position file and write the positions (long) as string to txt file (',' as separator).
-     * Use streams to avoid that all source file content is loaded into memory.
+     * The file is mapped chunk by chunk, chunks are converted concurrently and written in file order,
+     * i.e. the source file content is not loaded into memory at once.
      * Source file is deleted after completion.
      * Useful for further processing of calculated results e.g. in an app.
      *
      * @param binaryFilePath path to the binary positions file
      * @return path to the txt file
      */
-    @SuppressWarnings("InfiniteLoopStatement") // for performance reasons we use an infinite loop here
     public Path convertBinaryFileToTxtFile(Path binaryFilePath) {
         logger.debug("Reading positions from file {}", binaryFilePath);
         Instant start = Instant.now();
 
         Path txtFilePath = convertToTxtPositionFilePath(binaryFilePath);
-        try (BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(binaryFilePath.toFile()));
-             DataInputStream dataInputStream = new DataInputStream(bufferedInputStream);
-             BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(txtFilePath.toString()))
-        ) {
-            while (true) { // dataInputStream.available() is too slow
-                Long position = dataInputStream.readLong();
-                bufferedOutputStream.write((position + POSITION_SEPARATOR).getBytes());
-            }
-        } catch (EOFException e) {
-            logger.debug("reached end of file {}", binaryFilePath);
-        } catch (IOException e) {
-            logger.error("Could not read from file {}:  {}", binaryFilePath, e.getMessage());
+        try (FileChannel channel = FileChannel.open(binaryFilePath, StandardOpenOption.READ);
+             OutputStream outputStream = Files.newOutputStream(txtFilePath)) {
+            writeTxtRanges(outputStream, getNumberOfChunks(channel, 0L, Long.BYTES),
+                    (buffer, chunk) -> decodeBinaryChunk(mapChunk(channel, 0L, Long.BYTES, chunk), buffer::append));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not write to file {}:  {}", txtFilePath, e.getMessage());
             throw new RuntimeException(e);
         }
 
@@ -141,24 +543,202 @@ public class SerializationService {
         return txtFilePath;
     }
 
+    /**
+     * Read a file of sorted positions in the selected format (see {@link #getPositionFileFormat()}) and write the
+     * positions as string to txt file (',' as separator). Delta encoded blocks are converted concurrently.
+     * Source file is deleted after completion.
+     *
+     * @param positionFilePath path to the position file
+     * @return path to the txt file
+     */
+    public Path convertPositionFileToTxtFile(Path positionFilePath) {
+        if (positionFileFormat == PositionFileFormat.RAW) {
+            return convertBinaryFileToTxtFile(positionFilePath);
+        }
+        Instant start = Instant.now();
+        Path txtFilePath = convertToTxtPositionFilePath(positionFilePath);
+        try (DeltaLongFileReader reader = new DeltaLongFileReader(positionFilePath);
+             OutputStream outputStream = Files.newOutputStream(txtFilePath)) {
+            // blocks are decoded independently
+            writeTxtRanges(outputStream, reader.getNumberOfBlocks(), (buffer, block) -> {
+                for (long position : reader.readBlock(block)) {
+                    buffer.append(position);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not write to file {}:  {}", txtFilePath, e.getMessage());
+            throw new RuntimeException(e);
+        }
+
+        try {
+            Files.delete(positionFilePath);
+        } catch (IOException e) {
+            logger.error("Could not delete file {}:  {}", positionFilePath, e.getMessage());
+        }
+
+        logger.debug("Converting {} file to txt file took {} ms", positionFileFormat.getName(), Duration.between(start, Instant.now()).toMillis());
+        return txtFilePath;
+    }
+
+    /**
+     * Read compact position file and write the positions (long) as string to txt file (',' as separator).
+     * Like binary files the file is converted in concurrent chunks. Source file is deleted after completion.
+     *
+     * @param board           the board the positions live on
+     * @param compactFilePath path to the compact positions file
+     * @return path to the txt file
+     */
+    public Path convertCompactFileToTxtFile(Board board, Path compactFilePath) {
+        Instant start = Instant.now();
+        Path txtFilePath = Path.of(compactFilePath.toString().replace(COMPACT_FILE_EXTENSION, ".txt"));
+        try (FileChannel channel = FileChannel.open(compactFilePath, StandardOpenOption.READ);
+             OutputStream outputStream = Files.newOutputStream(txtFilePath)) {
+            PositionFileHeader header = readCompactFileHeader(board, channel);
+            int bytesPerPosition = header.getBytesPerPosition();
+            writeTxtRanges(outputStream, getNumberOfChunks(channel, header.getSize(), bytesPerPosition),
+                    (buffer, chunk) -> decodeCompactChunk(board, mapChunk(channel, header.getSize(), bytesPerPosition, chunk), bytesPerPosition, buffer::append));
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not write to file {}:  {}", txtFilePath, e.getMessage());
+            throw new RuntimeException(e);
+        }
+
+        try {
+            Files.delete(compactFilePath);
+        } catch (IOException e) {
+            logger.error("Could not delete file {}:  {}", compactFilePath, e.getMessage());
+        }
+
+        logger.debug("Converting compact to txt file took {} ms", Duration.between(start, Instant.now()).toMillis());
+        return txtFilePath;
+    }
+
     public Set<Long> readPositionsFromTxtFile(Path txtFilePath) {
-        Set<Long> numbersFromFile;
+        try (LongStream positions = streamPositionsFromTxtFile(txtFilePath)) {
+            return positions.boxed().collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Read positions from txt file into the given set. The file is parsed in parallel chunks
+     * (see {@link #streamPositionsFromTxtFile(Path)}), i.e. the set has to support concurrent insertion.
+     *
+     * @param txtFilePath path to the txt positions file
+     * @param positions   the set to add the positions to
+     * @return the given set
+     */
+    public LongSet readPositionsFromTxtFile(Path txtFilePath, LongSet positions) {
+        try (LongStream positionsFromFile = streamPositionsFromTxtFile(txtFilePath)) {
+            positionsFromFile.parallel().forEach(positions::add);
+        }
+        return positions;
+    }
+
+    /**
+     * Stream the positions of a txt file (',' as separator, whitespace is ignored) in file order.
+     * The file is mapped chunk by chunk and the chunks are parsed directly from the mapped bytes, i.e. the file is
+     * never loaded as string and files larger than the memory can be processed. Use {@code parallel()} to parse the
+     * chunks concurrently. The stream has to be closed to release the file.
+     *
+     * @param txtFilePath path to the txt positions file
+     * @return stream of the positions
+     * @throws NumberFormatException if the file contains anything but positions
+     */
+    public LongStream streamPositionsFromTxtFile(Path txtFilePath) {
+        FileChannel channel = null;
+        long size;
         try {
-            String numbersFromFileString = Files.readString(txtFilePath);
-            numbersFromFile = Arrays.stream(numbersFromFileString.split(SerializationService.POSITION_SEPARATOR))//
-                    .map(Long::valueOf)//
-                    .collect(Collectors.toSet());
+            channel = FileChannel.open(txtFilePath, StandardOpenOption.READ);
+            size = channel.size();
         } catch (IOException e) {
-            logger.error("Could not open or write to file '{}':  {}", txtFilePath, e.getMessage());
+            closeQuietly(channel, txtFilePath);
+            logger.error("Could not read from file {}:  {}", txtFilePath, e.getMessage());
             throw new RuntimeException(e);
         }
-        return numbersFromFile;
+        FileChannel txtFileChannel = channel;
+        int numberOfChunks = Math.toIntExact((size + TXT_CHUNK_BYTES - 1) / TXT_CHUNK_BYTES);
+        return IntStream.range(0, numberOfChunks)
+                .mapToObj(chunk -> parseTxtChunk(txtFileChannel, size, chunk))
+                .flatMapToLong(positions -> positions)
+                .onClose(() -> closeQuietly(txtFileChannel, txtFilePath));
     }
 
-    private Path getBinaryPositionFilePath(Board board, int numberOfRemainingPieces) {
+    /**
+     * Parse the positions which start in the chunk. The last position may end in the next chunk, i.e. the chunk is
+     * mapped with the maximal length of a position in addition (and the byte before the chunk to detect whether
+     * the first position starts in the chunk).
+     */
+    private LongStream parseTxtChunk(FileChannel channel, long size, int chunk) {
+        long start = (long) chunk * TXT_CHUNK_BYTES;
+        long mappedStart = Math.max(0L, start - 1);
+        ByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, mappedStart,
+                    Math.min(size, start + TXT_CHUNK_BYTES + PositionTextBuffer.MAX_POSITION_LENGTH) - mappedStart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // positions have to start before the end of the chunk
+        int end = (int) (Math.min(size, start + TXT_CHUNK_BYTES) - mappedStart);
+        int index = (int) (start - mappedStart);
+        // skip the rest of a position which starts in the previous chunk
+        while (index > 0 && index < end && !isTxtSeparator(bytes.get(index - 1))) {
+            index++;
+        }
+        LongStream.Builder positions = LongStream.builder();
+        while (index < end) {
+            if (isTxtSeparator(bytes.get(index))) {
+                index++;
+                continue;
+            }
+            boolean negative = bytes.get(index) == '-';
+            int digitsStart = negative ? index + 1 : index;
+            // accumulate negative like Long.parseLong (Long.MIN_VALUE has no positive counterpart)
+            long position = 0L;
+            for (index = digitsStart; index < bytes.limit() && !isTxtSeparator(bytes.get(index)); index++) {
+                int digit = bytes.get(index) - '0';
+                if (digit < 0 || digit > 9 || position < Long.MIN_VALUE / 10 || position * 10 < Long.MIN_VALUE + digit) {
+                    throw new NumberFormatException("Invalid position at byte " + (mappedStart + digitsStart));
+                }
+                position = position * 10 - digit;
+            }
+            if (index == digitsStart || (!negative && position == Long.MIN_VALUE)) {
+                throw new NumberFormatException("Invalid position at byte " + (mappedStart + digitsStart));
+            }
+            positions.accept(negative ? position : -position);
+        }
+        return positions.build();
+    }
+
+    private static boolean isTxtSeparator(byte value) {
+        return value == POSITION_SEPARATOR_BYTE || Character.isWhitespace(value);
+    }
+
+    private void closeQuietly(FileChannel channel, Path path) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Could not close file {}:  {}", path, e.getMessage());
+        }
+    }
+
+    public Path getBinaryPositionFilePath(Board board, int numberOfRemainingPieces) {
         return Paths.get(board.getName() + "_" + numberOfRemainingPieces + "_positions.bin");
     }
 
+    public Path getCompactPositionFilePath(Board board, int numberOfRemainingPieces) {
+        return Paths.get(board.getName() + "_" + numberOfRemainingPieces + "_positions" + COMPACT_FILE_EXTENSION);
+    }
+
+    /**
+     * @return number of bytes of a position in compact files, i.e. number of bytes for the holes of the board
+     */
+    public int getBytesPerCompactPosition(Board board) {
+        return (Long.bitCount(board.getLayout()) + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
     private Path getTxtPositionFilePath(Board board, int numberOfRemainingPieces) {
         return Paths.get(board.getName() + "_" + numberOfRemainingPieces + "_positions.txt");
     }
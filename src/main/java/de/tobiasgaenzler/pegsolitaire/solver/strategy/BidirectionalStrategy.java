@@ -0,0 +1,212 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.board.PositionClassifier;
+import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ConcurrentLongHashSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored) with a
+ * bidirectional search: the positions reachable from the start position are assembled down to the middle layer
+ * (forward) while the positions from which an end position can be reached are assembled up to the middle layer
+ * (backward, reverse moves starting with the end position of the board or all positions with one peg if the board
+ * does not define an end position). Both searches run at the same time and meet in the middle layer, i.e. neither
+ * search assembles the large layers on the other side of the middle which mostly contain dead ends.
+ * The winning positions of the middle layer are the positions found by both searches. Starting with the middle layer
+ * the positions which are not part of a solution are removed from the forward layers (positions without consecutive
+ * winning position) and the backward layers (positions without preceding winning position).
+ * All layers are kept in memory.
+ * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ */
+@Component
+public class BidirectionalStrategy implements WinningPositionsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(BidirectionalStrategy.class);
+    public static final String NAME = "winningPositionsBidirectional";
+    private final SerializationService serializationService;
+
+    @Autowired
+    public BidirectionalStrategy(SerializationService serializationService) {
+        this.serializationService = serializationService;
+    }
+
+    @Override
+    public List<Path> solve(Board board, Long startPosition) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        LongSet endPositions = getEndPositions(board, startPosition);
+        int endPins = board.getEndPosition() != null ? board.getNumberOfPegs(board.getEndPosition()) : 1;
+        int middlePins = (numberOfStartPins + endPins + 1) / 2;
+        // layers indexed by the number of pegs
+        LongSet[] layers = new LongSet[numberOfStartPins + 1];
+        layers[numberOfStartPins] = new ConcurrentLongHashSet();
+        layers[numberOfStartPins].add(board.canonicalize(startPosition));
+        LongSet[] backwardMiddleLayer = new LongSet[1];
+
+        Instant start = Instant.now();
+        CompletableFuture<Void> backwardSearch = CompletableFuture.runAsync(() ->
+                backwardMiddleLayer[0] = assembleBackward(board, layers, endPositions, endPins, middlePins));
+        assembleForward(board, layers, numberOfStartPins, middlePins);
+        backwardSearch.join();
+        logger.info("TOTAL TIME FORWARD AND BACKWARD POSITIONS: {} ms", Duration.between(start, Instant.now()).toMillis());
+
+        start = Instant.now();
+        LongSet forwardMiddleLayer = layers[middlePins];
+        LongSet middleWinningPositions = new ConcurrentLongHashSet();
+        forwardMiddleLayer.stream().parallel().filter(backwardMiddleLayer[0]::contains).forEach(middleWinningPositions::add);
+        logger.info("{}: {} winning positions in the middle layer (forward: {}, backward: {})", middlePins, middleWinningPositions.size(),
+                forwardMiddleLayer.size(), backwardMiddleLayer[0].size());
+        layers[middlePins] = middleWinningPositions;
+        removeNonWinningForwardPositions(board, layers, middlePins + 1, numberOfStartPins);
+        removeNonWinningBackwardPositions(board, layers, middlePins - 1, endPins);
+        logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+
+        List<Path> txtFilePaths = new ArrayList<>();
+        for (int pegs = numberOfStartPins; pegs >= endPins; pegs--) {
+            txtFilePaths.add(serializationService.storePositionsInTxtFile(board, layers[pegs], pegs));
+        }
+        return txtFilePaths;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Moves do not change the class of a position (see {@link Board#hasEndPositionOfSameClass(long)}), i.e. the backward
+     * search only starts with end positions which have a symmetric position of the start position's class (the
+     * positions are canonical, i.e. represent all their symmetric positions).
+     *
+     * @return the canonical end position of the board or all canonical positions with one peg if there is no end
+     * position (only positions which can be reached from the start position according to their class)
+     */
+    private LongSet getEndPositions(Board board, long startPosition) {
+        LongSet endPositions = new ConcurrentLongHashSet();
+        if (board.getEndPosition() != null) {
+            addIfSameClass(board, startPosition, board.getEndPosition(), endPositions);
+        } else {
+            long layout = board.getLayout();
+            for (long hole = Long.lowestOneBit(layout); hole != 0L; layout ^= hole, hole = Long.lowestOneBit(layout)) {
+                addIfSameClass(board, startPosition, hole, endPositions);
+            }
+        }
+        logger.info("{} end positions of the start position's class", endPositions.size());
+        return endPositions;
+    }
+
+    private void addIfSameClass(Board board, long startPosition, long endPosition, LongSet endPositions) {
+        PositionClassifier positionClassifier = board.getPositionClassifier();
+        int startClass = positionClassifier.getPositionClass(startPosition);
+        for (long symmetricPosition : board.getSymmetricPositions(endPosition)) {
+            if (positionClassifier.getPositionClass(symmetricPosition) == startClass) {
+                endPositions.add(board.canonicalize(endPosition));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Assemble the positions reachable from the start position down to the middle layer.
+     */
+    private void assembleForward(Board board, LongSet[] layers, int numberOfStartPins, int middlePins) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        for (int pegs = numberOfStartPins - 1; pegs >= middlePins; pegs--) {
+            Instant start = Instant.now();
+            LongSet consecutivePositions = new ConcurrentLongHashSet();
+            layers[pegs + 1].stream().parallel().forEach(currentPosition -> {
+                long[] symmetricPositions = symmetricPositionsBuffer.get();
+                board.getSymmetricPositions(currentPosition, symmetricPositions);
+                board.forEachConsecutiveCanonicalPosition(currentPosition, symmetricPositions, consecutivePositions::add);
+            });
+            layers[pegs] = consecutivePositions;
+            logger.info("{}: {} reachable positions in {} ms", pegs, consecutivePositions.size(), Duration.between(start, Instant.now()).toMillis());
+        }
+    }
+
+    /**
+     * Assemble the positions from which an end position can be reached up to the middle layer (reverse moves).
+     * The backward middle layer is returned instead of being stored because the forward search stores its middle layer.
+     *
+     * @return the positions with middlePins pegs from which an end position can be reached
+     */
+    private LongSet assembleBackward(Board board, LongSet[] layers, LongSet endPositions, int endPins, int middlePins) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        if (endPins < middlePins) {
+            layers[endPins] = endPositions;
+        }
+        LongSet positions = endPositions;
+        for (int pegs = endPins + 1; pegs <= middlePins; pegs++) {
+            Instant start = Instant.now();
+            LongSet precedingPositions = new ConcurrentLongHashSet();
+            positions.stream().parallel().forEach(position -> {
+                long[] symmetricPositions = symmetricPositionsBuffer.get();
+                board.getSymmetricPositions(position, symmetricPositions);
+                board.forEachPrecedingCanonicalPosition(position, symmetricPositions, precedingPositions::add);
+            });
+            if (pegs < middlePins) {
+                layers[pegs] = precedingPositions;
+            }
+            positions = precedingPositions;
+            logger.info("{}: {} backward positions in {} ms", pegs, precedingPositions.size(), Duration.between(start, Instant.now()).toMillis());
+        }
+        return positions;
+    }
+
+    /**
+     * Remove the forward positions which do not have a winning consecutive position (from the middle layer upwards).
+     */
+    private void removeNonWinningForwardPositions(Board board, LongSet[] layers, int firstPins, int lastPins) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        for (int pegs = firstPins; pegs <= lastPins; pegs++) {
+            Instant start = Instant.now();
+            LongSet followingPositions = layers[pegs - 1];
+            LongSet winningPositions = new ConcurrentLongHashSet();
+            layers[pegs].stream().parallel()
+                    .filter(position -> {
+                        long[] symmetricPositions = symmetricPositionsBuffer.get();
+                        board.getSymmetricPositions(position, symmetricPositions);
+                        return board.hasConsecutiveCanonicalPosition(position, symmetricPositions, followingPositions::contains);
+                    })
+                    .forEach(winningPositions::add);
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.size(), Duration.between(start, Instant.now()).toMillis(), layers[pegs].size());
+            layers[pegs] = winningPositions;
+        }
+    }
+
+    /**
+     * Remove the backward positions which do not have a winning preceding position (from the middle layer downwards).
+     */
+    private void removeNonWinningBackwardPositions(Board board, LongSet[] layers, int firstPins, int lastPins) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        for (int pegs = firstPins; pegs >= lastPins; pegs--) {
+            Instant start = Instant.now();
+            LongSet precedingPositions = layers[pegs + 1];
+            LongSet winningPositions = new ConcurrentLongHashSet();
+            layers[pegs].stream().parallel()
+                    .filter(position -> {
+                        long[] symmetricPositions = symmetricPositionsBuffer.get();
+                        board.getSymmetricPositions(position, symmetricPositions);
+                        return board.hasPrecedingCanonicalPosition(position, symmetricPositions, precedingPositions::contains);
+                    })
+                    .forEach(winningPositions::add);
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.size(), Duration.between(start, Instant.now()).toMillis(), layers[pegs].size());
+            layers[pegs] = winningPositions;
+        }
+    }
+}
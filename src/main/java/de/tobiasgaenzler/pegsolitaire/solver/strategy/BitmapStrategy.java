@@ -0,0 +1,128 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.board.PositionRanker;
+import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.AtomicBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored).
+ * The positions with k pegs are stored in a bitmap indexed by the rank of the position (see {@link PositionRanker}),
+ * i.e. the memory usage of a set of positions does not depend on the number of positions but on the number of
+ * possible positions C(holes, k) (1 bit per position, approx. 1 GB for all sets of the english board).
+ * Adding and looking up positions are single (atomic) bit operations.
+ * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ */
+@Component
+public class BitmapStrategy implements WinningPositionsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(BitmapStrategy.class);
+    public static final String NAME = "winningPositionsBitmap";
+    private final SerializationService serializationService;
+
+    @Autowired
+    public BitmapStrategy(SerializationService serializationService) {
+        this.serializationService = serializationService;
+    }
+
+    @Override
+    public List<Path> solve(Board board, Long startPosition) {
+        PositionRanker ranker = new PositionRanker(board);
+        AtomicBitmap[] reachablePositions = assembleReachablePositions(board, ranker, startPosition);
+        Instant start = Instant.now();
+        removeNonWinningPositions(board, ranker, reachablePositions);
+        logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+        List<Path> txtFilePaths = new ArrayList<>();
+        for (int pegs = reachablePositions.length - 1; pegs > 0; pegs--) {
+            int numberOfPegs = pegs;
+            if (reachablePositions[pegs].cardinality() > 0L) {
+                txtFilePaths.add(serializationService.storePositionsInTxtFile(board,
+                        reachablePositions[pegs].stream().map(rank -> ranker.unrank(numberOfPegs, rank)), pegs));
+            }
+        }
+        return txtFilePaths;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Assemble all reachable positions starting with startPosition.
+     *
+     * @param board         the board where the positions live
+     * @param ranker        ranks the positions of the board
+     * @param startPosition start finding positions with this start position
+     * @return bitmaps of reachable positions indexed by number of pegs
+     */
+    private AtomicBitmap[] assembleReachablePositions(Board board, PositionRanker ranker, Long startPosition) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        AtomicBitmap[] reachablePositions = new AtomicBitmap[numberOfStartPins + 1];
+        reachablePositions[0] = new AtomicBitmap(0L);
+        reachablePositions[numberOfStartPins] = new AtomicBitmap(ranker.getNumberOfPositions(numberOfStartPins));
+        // only canonical forms are stored, i.e. no symmetric duplicates
+        reachablePositions[numberOfStartPins].set(ranker.rank(board.canonicalize(startPosition)));
+
+        long totalTime = 0L;
+        for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
+            Instant start = Instant.now();
+            int previousPegs = numberOfRemainingPieces + 1;
+            AtomicBitmap followingPositions = new AtomicBitmap(ranker.getNumberOfPositions(numberOfRemainingPieces));
+            reachablePositions[numberOfRemainingPieces] = followingPositions;
+            reachablePositions[previousPegs].stream().parallel().forEach(rank -> {
+                long currentPosition = ranker.unrank(previousPegs, rank);
+                long[] symmetricPositions = symmetricPositionsBuffer.get();
+                board.getSymmetricPositions(currentPosition, symmetricPositions);
+                board.forEachConsecutiveCanonicalPosition(currentPosition, symmetricPositions,
+                        consecutivePosition -> followingPositions.set(ranker.rank(consecutivePosition)));
+            });
+            totalTime += Duration.between(start, Instant.now()).toMillis();
+            logger.info("{}: {} reachable positions in {} ms ({} MB)", numberOfRemainingPieces, followingPositions.cardinality(),
+                    Duration.between(start, Instant.now()).toMillis(), followingPositions.getMemoryUsage() >> 20);
+        }
+        logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
+        return reachablePositions;
+    }
+
+    /**
+     * remove all positions which are not part of a solution (the bits of these positions are cleared).
+     *
+     * @param board              the board, the positions live on
+     * @param ranker             ranks the positions of the board
+     * @param reachablePositions bitmaps of reachable positions indexed by number of pegs
+     */
+    private void removeNonWinningPositions(Board board, PositionRanker ranker, AtomicBitmap[] reachablePositions) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        for (int pegs = 2; pegs < reachablePositions.length; pegs++) {
+            Instant start = Instant.now();
+            int numberOfPegs = pegs;
+            AtomicBitmap positions = reachablePositions[pegs];
+            AtomicBitmap followingPositions = reachablePositions[pegs - 1];
+            long numberOfPositions = positions.cardinality();
+            positions.stream().parallel()
+                    .filter(rank -> {
+                        long position = ranker.unrank(numberOfPegs, rank);
+                        long[] symmetricPositions = symmetricPositionsBuffer.get();
+                        board.getSymmetricPositions(position, symmetricPositions);
+                        return !board.hasConsecutiveCanonicalPosition(position, symmetricPositions,
+                                consecutivePosition -> followingPositions.get(ranker.rank(consecutivePosition)));
+                    })
+                    .forEach(positions::clear);
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, positions.cardinality(), (Duration.between(start, Instant.now()).toMillis()), numberOfPositions);
+        }
+    }
+}
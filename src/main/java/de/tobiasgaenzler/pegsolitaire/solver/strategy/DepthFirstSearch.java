@@ -0,0 +1,101 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda.PagodaFunctions;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * An iterative depth first search for a solution used by the depth first strategies.
+ * Instead of recursion the search keeps the positions (path) and the index of the next move to try per search depth
+ * (number of moves) in arrays. Consecutive positions are generated lazily: the move scan of a position is resumed
+ * with the next move when the search returns to the position, i.e. no consecutive positions are generated after a
+ * solution is found. Moves are tried in the order of {@link Board#getMoveMasks()}, i.e. the same solution is found as
+ * with {@link Board#getConsecutivePositions(long, long[])}.
+ * Positions which can not reach the end position according to the pagoda functions of the board are not searched.
+ * Moves do not change the class of a position (see {@link Board#hasEndPositionOfSameClass(long)}), i.e. all positions of
+ * the search have the class of the first position and the search is skipped if no end position has this class.
+ * An instance is not thread safe, every thread needs its own instance.
+ */
+class DepthFirstSearch {
+    private final Board board;
+    private final FailedPositions failedPositions;
+    private final PagodaFunctions pagodaFunctions;
+    private final long[] masks;
+    private final long[] checks;
+    private final Long endPosition;
+    // index of the next move to try per search depth
+    private final int[] nextMoves;
+
+    /**
+     * @param board           the board for which we solve the game
+     * @param failedPositions positions from which no solution can be reached
+     * @param pagodaFunctions pagoda functions for the end position of the board
+     * @param pathLength      number of positions of a solution (number of pegs of the start position)
+     */
+    DepthFirstSearch(Board board, FailedPositions failedPositions, PagodaFunctions pagodaFunctions, int pathLength) {
+        this.board = board;
+        this.failedPositions = failedPositions;
+        this.pagodaFunctions = pagodaFunctions;
+        this.masks = board.getMoveMasks();
+        this.checks = board.getMoveChecks();
+        this.endPosition = board.getEndPosition();
+        this.nextMoves = new int[pathLength];
+    }
+
+    /**
+     * Search for a solution starting with the position path[startDepth]. The positions before startDepth are not
+     * modified. If a solution is found the path contains the solution, otherwise the positions after startDepth are
+     * reset to zero.
+     *
+     * @param path       positions indexed by number of moves (one position per number of pegs)
+     * @param startDepth index of the position to start with
+     * @param cancelled  stop the search if true (checked once per position)
+     * @return true if a solution was found
+     */
+    boolean search(long[] path, int startDepth, BooleanSupplier cancelled) {
+        int lastDepth = path.length - 1;
+        if (startDepth >= lastDepth || !board.hasEndPositionOfSameClass(path[startDepth])) {
+            return false;
+        }
+        int depth = startDepth;
+        nextMoves[depth] = 0;
+        while (depth >= startDepth) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            long position = path[depth];
+            int move = nextMoves[depth];
+            // resume the move scan
+            while (move < masks.length && (position & masks[move]) != checks[move]) {
+                move++;
+            }
+            if (move == masks.length) {
+                // all moves tried: no solution can be reached from this position
+                path[depth + 1] = 0L;
+                failedPositions.add(position);
+                depth--;
+                continue;
+            }
+            nextMoves[depth] = move + 1;
+            long consecutivePosition = position ^ masks[move];
+            path[depth + 1] = consecutivePosition;
+            if (isEndPosition(consecutivePosition)) {
+                return true;
+            }
+            // positions of the last depth have one peg, i.e. no moves are possible
+            if (depth + 1 < lastDepth && pagodaFunctions.canReachTarget(consecutivePosition) && !failedPositions.contains(consecutivePosition)) {
+                depth++;
+                nextMoves[depth] = 0;
+            }
+        }
+        return false;
+    }
+
+    private boolean isEndPosition(long position) {
+        if (endPosition != null) {
+            return endPosition == position;
+        }
+        return board.getNumberOfPegs(position) == 1;
+    }
+}
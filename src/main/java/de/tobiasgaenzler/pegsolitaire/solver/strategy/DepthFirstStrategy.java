@@ -2,78 +2,62 @@ package de.tobiasgaenzler.pegsolitaire.solver.strategy;
 
 import de.tobiasgaenzler.pegsolitaire.board.Board;
 import de.tobiasgaenzler.pegsolitaire.solver.Solution;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda.PagodaFunctions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-
-import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.util.unit.DataSize;
 
 /**
- * This strategy uses a recursive depth first search method for finding a solution.
+ * This strategy uses a depth first search method for finding a solution (iterative, see {@link DepthFirstSearch}).
  * Symmetry is not taken into account. The first solution found is returned.
+ * Positions from which no solution can be reached are stored in a fixed size table (--failedPositionsMemory) and are
+ * not searched again when they are reached via another order of moves. Only unsuccessful search trees are skipped,
+ * i.e. the same solution is found with and without the table. Positions which can not reach the end position according
+ * to the pagoda functions of the board (see {@link PagodaFunctions})
+ * are skipped as well.
  */
 @Component
 public class DepthFirstStrategy implements SingleSolutionStrategy {
 
     public static final String NAME = "singleSolution";
+    static final String DEFAULT_FAILED_POSITIONS_MEMORY = "64MB";
+    private final long failedPositionsMemory;
 
-    @Override
-    public Solution solve(Board board, Long startPosition) {
-
-        AtomicBoolean solved = new AtomicBoolean(false);
-        Solution solution = new Solution(board.getNumberOfPegs(startPosition));
-
-        // solve the game via recursion
-        this.solveRecursive(startPosition, board, solution, solved);
-        return solution;
+    public DepthFirstStrategy() {
+        this(DataSize.parse(DEFAULT_FAILED_POSITIONS_MEMORY).toBytes());
     }
 
-    @Override
-    public String getName() {
-        return NAME;
+    @Autowired
+    public DepthFirstStrategy(@Value("${failedPositionsMemory:" + DEFAULT_FAILED_POSITIONS_MEMORY + "}") String failedPositionsMemory) {
+        this(DataSize.parse(failedPositionsMemory).toBytes());
     }
 
     /**
-     * A depth first search method for finding a solution using recursion.
-     *
-     * @param startPosition solve the game for this start position
-     * @param board         the board for which we solve the game
-     * @param solution      the list of positions which is used by the solve method
-     * @param solved        indicator for the recursive solve method to stop
+     * @param failedPositionsMemory number of bytes used for positions without solution (zero: disabled)
      */
-    private void solveRecursive(long startPosition, Board board, Solution solution, AtomicBoolean solved) {
-
-        int numPieces = board.getNumberOfPegs(startPosition);
-        // return if there is only one peg left
-        if (numPieces <= 1) {
-            return;
-        }
-
-        int numberOfMoves = solution.getPositions().size() - numPieces;
-
-        // set current position in solution
-        solution.getPositions().set(numberOfMoves, startPosition);
-
-        // call this method for each consecutive position and return if a solution is found
-        long[] consecutivePositions = board.getConsecutivePositions(startPosition);
-        for (long position : consecutivePositions) {
+    public DepthFirstStrategy(long failedPositionsMemory) {
+        this.failedPositionsMemory = failedPositionsMemory;
+    }
 
-            // set consecutive position
-            solution.getPositions().set(numberOfMoves + 1, position);
+    @Override
+    public Solution solve(Board board, Long startPosition) {
+        // the path contains one position per number of pegs (index: number of moves)
+        long[] path = new long[Math.max(1, board.getNumberOfPegs(startPosition))];
+        path[0] = startPosition;
+        FailedPositions failedPositions = new FailedPositions(board, failedPositionsMemory);
 
-            // return if a solution has been found
-            if (solution.isEndPositionValid(board)) {
-                solved.set(true);
-                return;
-            } else {
-                this.solveRecursive(position, board, solution, solved);
-            }
+        new DepthFirstSearch(board, failedPositions, PagodaFunctions.forEndPosition(board), path.length).search(path, 0, () -> false);
 
-            // return if we are finished after recursive call
-            if (solved.get()) {
-                return;
-            } else {
-                // reset position, since no solution was found
-                solution.getPositions().set(numberOfMoves + 1, 0L);
-            }
+        Solution solution = new Solution();
+        for (long position : path) {
+            solution.add(position);
         }
+        return solution;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
     }
 }
@@ -0,0 +1,196 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ExternalSorter;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionFileFormat;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionReader;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionWriter;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.SortedLongArrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored) using
+ * external memory i.e. the sets of positions do not need to fit into memory:
+ * <ul>
+ *     <li>All sets of positions are stored in sorted files without duplicates.</li>
+ *     <li>Consecutive positions are computed for blocks of positions, sorted and written to disk as runs.
+ *     The runs are merged into the file of the next set of positions (see {@link ExternalSorter}).</li>
+ *     <li>The preceding positions of the winning positions are computed the same way. The positions which are reachable
+ *     and have a winning consecutive position are found by merging both sorted files.</li>
+ * </ul>
+ * The memory usage depends on the number of positions per run (command line e.g. --externalRunSize=8388608) only.
+ * The files are written in the position file format of the serialization service, e.g. delta encoded files
+ * (command line --positionFileFormat=delta) need only a few bytes per position.
+ * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ */
+@Component
+public class ExternalMemoryStrategy implements WinningPositionsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalMemoryStrategy.class);
+    public static final String NAME = "winningPositionsExternal";
+    // number of positions which are expanded in one task
+    private static final int CHUNK_SIZE = 1 << 12;
+    private final SerializationService serializationService;
+    private final int runSize;
+
+    @Autowired
+    public ExternalMemoryStrategy(SerializationService serializationService, @Value("${externalRunSize:8388608}") int runSize) {
+        this.serializationService = serializationService;
+        this.runSize = runSize;
+    }
+
+    @Override
+    public List<Path> solve(Board board, Long startPosition) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        List<Path> binaryFilePaths = new ArrayList<>();
+        Path directory = PositionFiles.createTemporaryDirectory(NAME);
+        try (ExternalSorter sorter = new ExternalSorter(directory, serializationService.getPositionFileFormat())) {
+            assembleReachablePositions(board, startPosition, sorter, directory);
+            Instant start = Instant.now();
+            removeNonWinningPositions(board, numberOfStartPins, sorter, directory);
+            logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+        } finally {
+            PositionFiles.deleteDirectory(directory);
+        }
+        for (int pegs = numberOfStartPins; pegs > 0; pegs--) {
+            binaryFilePaths.add(serializationService.getBinaryPositionFilePath(board, pegs));
+        }
+        return binaryFilePaths.stream()
+                .filter(path -> PositionFiles.containsPositionsOrDelete(path, serializationService.getPositionFileFormat()))
+                .map(serializationService::convertPositionFileToTxtFile)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Assemble all reachable positions starting with startPosition and store them in sorted files.
+     *
+     * @param board         the board where the positions live
+     * @param startPosition start finding positions with this start position
+     * @param sorter        used to sort the consecutive positions
+     * @param directory     directory for the files of reachable positions
+     */
+    private void assembleReachablePositions(Board board, Long startPosition, ExternalSorter sorter, Path directory) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        // only canonical forms are stored, i.e. no symmetric duplicates
+        try (PositionWriter writer = serializationService.getPositionFileFormat().openWriter(getReachablePositionsPath(directory, numberOfStartPins))) {
+            writer.write(board.canonicalize(startPosition));
+        }
+
+        long totalTime = 0L;
+        for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
+            Instant start = Instant.now();
+            expandFile(board, getReachablePositionsPath(directory, numberOfRemainingPieces + 1), true, sorter);
+            long count = sorter.mergeTo(getReachablePositionsPath(directory, numberOfRemainingPieces));
+
+            totalTime += Duration.between(start, Instant.now()).toMillis();
+            logger.info("{}: {} reachable positions in {} ms", numberOfRemainingPieces, count,
+                    Duration.between(start, Instant.now()).toMillis());
+        }
+        logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
+    }
+
+    /**
+     * Keep all positions which are part of a solution i.e. reachable positions which are preceding positions of
+     * winning positions with one peg less.
+     *
+     * @param board             the board, the positions live on
+     * @param numberOfStartPins number of pegs of the start position
+     * @param sorter            used to sort the preceding positions
+     * @param directory         directory of the files of reachable positions
+     */
+    private void removeNonWinningPositions(Board board, int numberOfStartPins, ExternalSorter sorter, Path directory) {
+        PositionFiles.move(getReachablePositionsPath(directory, 1), serializationService.getBinaryPositionFilePath(board, 1));
+        Path precedingPositionsPath = directory.resolve("preceding.bin");
+        for (int pegs = 2; pegs <= numberOfStartPins; pegs++) {
+            Instant start = Instant.now();
+            expandFile(board, serializationService.getBinaryPositionFilePath(board, pegs - 1), false, sorter);
+            sorter.mergeTo(precedingPositionsPath);
+            Path reachablePositionsPath = getReachablePositionsPath(directory, pegs);
+            long[] counts = intersect(reachablePositionsPath, precedingPositionsPath, serializationService.getBinaryPositionFilePath(board, pegs));
+            PositionFiles.delete(precedingPositionsPath);
+            PositionFiles.delete(reachablePositionsPath);
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, counts[1], (Duration.between(start, Instant.now()).toMillis()), counts[0]);
+        }
+    }
+
+    /**
+     * Read the positions from file in blocks, compute the canonical consecutive (or preceding) positions of each block
+     * and add them as sorted run to the sorter.
+     */
+    private void expandFile(Board board, Path path, boolean consecutive, ExternalSorter sorter) {
+        long[] block = new long[Math.max(1, runSize / board.getMoveMasks().length)];
+        try (PositionReader reader = serializationService.getPositionFileFormat().openReader(path)) {
+            int size;
+            while ((size = reader.read(block)) > 0) {
+                int numberOfPositions = size;
+                int numberOfChunks = (numberOfPositions + CHUNK_SIZE - 1) / CHUNK_SIZE;
+                List<long[]> positionsPerChunk = IntStream.range(0, numberOfChunks).parallel()
+                        .mapToObj(chunk -> expandChunk(board, block, chunk * CHUNK_SIZE,
+                                Math.min(numberOfPositions, (chunk + 1) * CHUNK_SIZE), consecutive))
+                        .collect(Collectors.toList());
+                sorter.addRun(SortedLongArrays.mergeUnique(positionsPerChunk));
+            }
+        }
+    }
+
+    private long[] expandChunk(Board board, long[] positions, int from, int to, boolean consecutive) {
+        long[] symmetricPositions = new long[board.getNumberOfSymmetries()];
+        PositionBuffer expandedPositions = new PositionBuffer((to - from) * board.getMoveMasks().length);
+        for (int i = from; i < to; i++) {
+            board.getSymmetricPositions(positions[i], symmetricPositions);
+            if (consecutive) {
+                board.forEachConsecutiveCanonicalPosition(positions[i], symmetricPositions, expandedPositions);
+            } else {
+                board.forEachPrecedingCanonicalPosition(positions[i], symmetricPositions, expandedPositions);
+            }
+        }
+        return SortedLongArrays.sortUnique(expandedPositions.getPositions(), expandedPositions.size());
+    }
+
+    /**
+     * Write the positions contained in both sorted files to the target file (merge join).
+     *
+     * @return number of positions in the first file and number of positions written
+     */
+    private long[] intersect(Path sortedPath, Path otherSortedPath, Path target) {
+        long count = 0L;
+        PositionFileFormat format = serializationService.getPositionFileFormat();
+        try (PositionReader reader = format.openReader(sortedPath);
+             PositionReader otherReader = format.openReader(otherSortedPath);
+             PositionWriter writer = format.openWriter(target)) {
+            while (reader.hasNext()) {
+                long position = reader.next();
+                count++;
+                while (otherReader.hasNext() && otherReader.peek() < position) {
+                    otherReader.next();
+                }
+                if (otherReader.hasNext() && otherReader.peek() == position) {
+                    writer.write(position);
+                }
+            }
+            return new long[]{count, writer.getCount()};
+        }
+    }
+
+    private Path getReachablePositionsPath(Path directory, int pegs) {
+        return directory.resolve("reachable_" + pegs + ".bin");
+    }
+}
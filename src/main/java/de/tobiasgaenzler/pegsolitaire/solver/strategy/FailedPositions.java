@@ -0,0 +1,50 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.FailedPositionTable;
+
+/**
+ * Positions from which no solution can be reached, used by the depth first strategies to skip search trees which
+ * have already been searched (reached again via another order of moves).
+ * Positions are stored in canonical form if the end position is symmetric (or the board does not define an end
+ * position), i.e. symmetric positions are skipped as well. Otherwise a symmetric position might be solvable and the
+ * positions are stored as they are.
+ * A memory budget of zero disables the table.
+ */
+class FailedPositions {
+    private final Board board;
+    private final FailedPositionTable table;
+    private final boolean canonical;
+
+    FailedPositions(Board board, long memoryBudget) {
+        this.board = board;
+        this.table = memoryBudget > 0L ? new FailedPositionTable(memoryBudget) : null;
+        Long endPosition = board.getEndPosition();
+        this.canonical = endPosition == null || isSymmetric(board, endPosition);
+    }
+
+    /**
+     * @return true if the position is known to have no solution
+     */
+    boolean contains(long position) {
+        return table != null && table.contains(canonical ? board.canonicalize(position) : position);
+    }
+
+    /**
+     * @param position a position from which no solution can be reached
+     */
+    void add(long position) {
+        if (table != null) {
+            table.add(canonical ? board.canonicalize(position) : position);
+        }
+    }
+
+    private static boolean isSymmetric(Board board, long position) {
+        for (long symmetricPosition : board.getSymmetricPositions(position)) {
+            if (symmetricPosition != position) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,6 +2,9 @@ package de.tobiasgaenzler.pegsolitaire.solver.strategy;
 
 import de.tobiasgaenzler.pegsolitaire.board.Board;
 import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ConcurrentLongHashSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSetFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +16,14 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This strategy will assemble all winning positions (modulo symmetry).
- * All sets of positions are kept in memory which leads to high memory consumption.
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored).
+ * All sets of positions are kept in memory which leads to high memory consumption
+ * (positions are stored as primitive longs, see {@link ConcurrentLongHashSet}).
+ * The sets can be stored off heap (see {@link LongSetFactory}).
  * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
  */
 @Component
@@ -28,30 +33,49 @@ public class HighMemoryUsageStrategy implements WinningPositionsStrategy {
     public static final String NAME = "winningPositionsHighMem";
     private final List<Path> txtFilePaths = new ArrayList<>();
     private final SerializationService serializationService;
-    private final List<Set<Long>> reachablePositions = Collections.synchronizedList(new ArrayList<>());
+    private final LongSetFactory longSetFactory;
+    private final List<LongSet> reachablePositions = Collections.synchronizedList(new ArrayList<>());
 
-    @Autowired
     public HighMemoryUsageStrategy(SerializationService serializationService) {
+        this(serializationService, new LongSetFactory());
+    }
+
+    @Autowired
+    public HighMemoryUsageStrategy(SerializationService serializationService, LongSetFactory longSetFactory) {
         this.serializationService = serializationService;
+        this.longSetFactory = longSetFactory;
     }
 
     @Override
     public List<Path> solve(Board board, Long startPosition) {
         txtFilePaths.clear();
         reachablePositions.clear();
-        assembleReachablePositions(board, startPosition);
-        Instant start = Instant.now();
-        removeNonWinningPositions(board);
-        logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
-        for (int pegs = 0; pegs < reachablePositions.size(); pegs++) {
-            if (!reachablePositions.get(pegs).isEmpty()) {
-                Path txtFilePath = serializationService.storePositionsInTxtFile(board,
-                        reachablePositions.get(reachablePositions.size() - pegs - 1),
-                        pegs);
-                txtFilePaths.add(txtFilePath);
+        logger.info("Use {} layer storage", longSetFactory.getLayerStorage());
+        // the parallel streams run in an own pool, i.e. all their tasks are stopped before the layers are closed
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.submit(() -> {
+                assembleReachablePositions(board, startPosition);
+                Instant start = Instant.now();
+                removeNonWinningPositions(board);
+                logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+            }).join();
+            for (int pegs = 0; pegs < reachablePositions.size(); pegs++) {
+                if (!reachablePositions.get(pegs).isEmpty()) {
+                    Path txtFilePath = serializationService.storePositionsInTxtFile(board,
+                            reachablePositions.get(reachablePositions.size() - pegs - 1),
+                            pegs);
+                    txtFilePaths.add(txtFilePath);
+                }
             }
+            return txtFilePaths;
+        } finally {
+            // tasks of a failed stream might still use the layers
+            awaitTermination(pool);
+            // off heap sets release their native memory (also if the computation fails, e.g. budget exceeded)
+            reachablePositions.forEach(LongSet::close);
+            reachablePositions.clear();
         }
-        return txtFilePaths;
     }
 
     @Override
@@ -59,6 +83,18 @@ public class HighMemoryUsageStrategy implements WinningPositionsStrategy {
         return NAME;
     }
 
+    private void awaitTermination(ForkJoinPool pool) {
+        pool.shutdownNow();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for the tasks of the layers to stop");
+            }
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for the tasks of the layers to stop");
+            Thread.currentThread().interrupt();
+        }
+    }
+
 
     /**
      * Assemble all reachable positions starting with startPosition.
@@ -69,101 +105,56 @@ public class HighMemoryUsageStrategy implements WinningPositionsStrategy {
      */
     private void assembleReachablePositions(Board board, Long startPosition) {
         int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
 
         for (int i = 0; i <= numberOfStartPins + 1; i++) {
-            reachablePositions.add(ConcurrentHashMap.newKeySet());
+            reachablePositions.add(longSetFactory.create());
         }
 
-        // add startPosition to reachablePositions
-        reachablePositions.get(numberOfStartPins).add(startPosition);
+        // add startPosition to reachablePositions (only canonical forms are stored, i.e. no symmetric duplicates)
+        reachablePositions.get(numberOfStartPins).add(board.canonicalize(startPosition));
 
         long totalTime = 0L;
         for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
             long start = System.currentTimeMillis();
-            Set<Long> followingPositions = reachablePositions.get(numberOfRemainingPieces);
+            LongSet followingPositions = reachablePositions.get(numberOfRemainingPieces);
             reachablePositions.get(numberOfRemainingPieces + 1).stream().parallel().forEach(currentPosition -> {
-                for (long consecutivePosition : board.getConsecutivePositions(currentPosition)) {
-                    if (followingPositions.contains(consecutivePosition)) {
-                        continue;
-                    }
-                    boolean inSet = false;
-                    for (long symPos : board.getSymmetricPositions(consecutivePosition)) {
-                        //check if a symmetric position is already in the set
-                        if (followingPositions.contains(symPos)) {
-                            inSet = true;
-                            break;
-                        }
-                    }
-                    //add position if no equivalent (symmetric) position is already in set
-                    if (!inSet) {
-                        followingPositions.add(consecutivePosition);
-                    }
-                }
+                // the symmetric positions of the consecutive positions are derived from these via the symmetric move masks
+                long[] symmetricPositions = symmetricPositionsBuffer.get();
+                board.getSymmetricPositions(currentPosition, symmetricPositions);
+                board.forEachConsecutiveCanonicalPosition(currentPosition, symmetricPositions, followingPositions::add);
             });
             totalTime += (System.currentTimeMillis() - start);
-            logger.info("{}: {} reachable positions in {} ms", numberOfRemainingPieces, reachablePositions.get(numberOfRemainingPieces).size(),
-                    (System.currentTimeMillis() - start));
-            removeSymmetricPositions(board, followingPositions);
+            logger.info("{}: {} reachable positions in {} ms ({} bytes/position)", numberOfRemainingPieces, followingPositions.size(),
+                    (System.currentTimeMillis() - start), followingPositions.getMemoryUsage() / Math.max(1L, followingPositions.size()));
         }
 
         logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
     }
 
-    /**
-     * Due to concurrency there might be symmetric entries in the sets of reachable positions.
-     * Remove symmetric entries from reachable positions.
-     * Removing the positions after calculation is faster than preventing that symmetric positions are added
-     * (using synchronization).
-     *
-     * @param board Board where the positions live
-     */
-    private void removeSymmetricPositions(Board board, Set<Long> positions) {
-        Set<Long> redundantPositions = ConcurrentHashMap.newKeySet();
-        Instant start = Instant.now();
-        positions.stream().parallel().forEach(position -> {
-            for (long symmetricPosition : board.getSymmetricPositions(position)) {
-                if (symmetricPosition != position && positions.contains(symmetricPosition)) {
-                    redundantPositions.add(position);
-                    break;
-                }
-            }
-        });
-        for (Long redundantPosition : redundantPositions) {
-            for (long symmetricPosition : board.getSymmetricPositions(redundantPosition)) {
-                if (symmetricPosition != redundantPosition && positions.contains(symmetricPosition)) {
-                    positions.remove(redundantPosition);
-                    break;
-                }
-            }
-        }
-        if (!redundantPositions.isEmpty()) {
-            logger.info("Removed {} symmetric positions in {} ms", redundantPositions.size(), Duration.between(start, Instant.now()).toMillis());
-        }
-    }
-
     /**
      * remove all positions which are not part of a solution.
      *
      * @param board the board, the positions live on
      */
     private void removeNonWinningPositions(Board board) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
         for (int pegs = 2; pegs < reachablePositions.size(); pegs++) {
             Instant start = Instant.now();
-            Set<Long> positions = reachablePositions.get(pegs);
-            Set<Long> followingPositions = reachablePositions.get(pegs - 1);
-            Set<Long> winningPositions = ConcurrentHashMap.newKeySet();
-            positions.stream().parallel().forEach(position -> {
-                for (long consecutivePosition : board.getConsecutivePositions(position)) {
-                    for (long symmetricPosition : board.getSymmetricPositions(consecutivePosition)) {
-                        if (followingPositions.contains(symmetricPosition)) {
-                            winningPositions.add(position);
-                            break;
-                        }
-                    }
-                }
-            });
+            LongSet positions = reachablePositions.get(pegs);
+            LongSet followingPositions = reachablePositions.get(pegs - 1);
+            LongSet winningPositions = longSetFactory.create();
+            positions.stream().parallel()
+                    .filter(position -> {
+                        long[] symmetricPositions = symmetricPositionsBuffer.get();
+                        board.getSymmetricPositions(position, symmetricPositions);
+                        return board.hasConsecutiveCanonicalPosition(position, symmetricPositions, followingPositions::contains);
+                    })
+                    .forEach(winningPositions::add);
             logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.size(), (Duration.between(start, Instant.now()).toMillis()), positions.size());
-            reachablePositions.set(pegs, winningPositions);
+            reachablePositions.set(pegs, winningPositions).close();
         }
     }
 }
\ No newline at end of file
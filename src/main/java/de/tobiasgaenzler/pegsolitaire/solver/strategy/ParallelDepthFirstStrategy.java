@@ -0,0 +1,158 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.Solution;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda.PagodaFunctions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This strategy uses a parallel depth first search (fork/join) for finding a solution.
+ * The search tree is split into tasks down to the split depth (number of moves), deeper positions are searched
+ * sequentially by the task. Idle threads of the pool steal the pending tasks. Every task uses its own buffers for
+ * the path (positions from the start position to the current position) and the consecutive positions.
+ * Positions from which no solution can be reached are shared by all tasks in a lock free table (--failedPositionsMemory)
+ * and are not searched again, positions which can not reach the end position according to the pagoda functions of the
+ * board are not searched either.
+ * The first solution found is returned and all remaining tasks stop as soon as they notice that a solution exists.
+ * Symmetry is not taken into account. Since the tasks are processed in parallel the solution found may differ from the
+ * solution found by the {@link DepthFirstStrategy}.
+ */
+@Component
+public class ParallelDepthFirstStrategy implements SingleSolutionStrategy {
+
+    public static final String NAME = "singleSolutionParallel";
+    private static final int DEFAULT_SPLIT_DEPTH = 4;
+    private final int splitDepth;
+    private final long failedPositionsMemory;
+
+    public ParallelDepthFirstStrategy() {
+        this(DEFAULT_SPLIT_DEPTH, DataSize.parse(DepthFirstStrategy.DEFAULT_FAILED_POSITIONS_MEMORY).toBytes());
+    }
+
+    @Autowired
+    public ParallelDepthFirstStrategy(@Value("${splitDepth:" + DEFAULT_SPLIT_DEPTH + "}") int splitDepth,
+                                      @Value("${failedPositionsMemory:" + DepthFirstStrategy.DEFAULT_FAILED_POSITIONS_MEMORY + "}") String failedPositionsMemory) {
+        this(splitDepth, DataSize.parse(failedPositionsMemory).toBytes());
+    }
+
+    /**
+     * @param splitDepth            number of moves up to which the search tree is split into tasks
+     * @param failedPositionsMemory number of bytes used for positions without solution (zero: disabled)
+     */
+    public ParallelDepthFirstStrategy(int splitDepth, long failedPositionsMemory) {
+        this.splitDepth = splitDepth;
+        this.failedPositionsMemory = failedPositionsMemory;
+    }
+
+    @Override
+    public Solution solve(Board board, Long startPosition) {
+        // the path contains one position per number of pegs (index: number of moves)
+        long[] path = new long[Math.max(1, board.getNumberOfPegs(startPosition))];
+        path[0] = startPosition;
+        AtomicReference<long[]> solutionPath = new AtomicReference<>();
+
+        FailedPositions failedPositions = new FailedPositions(board, failedPositionsMemory);
+
+        PagodaFunctions pagodaFunctions = PagodaFunctions.forEndPosition(board);
+
+        ForkJoinPool.commonPool().invoke(new SearchTask(board, path, 0, splitDepth, solutionPath, failedPositions, pagodaFunctions));
+
+        Solution solution = new Solution();
+        for (long position : solutionPath.get() != null ? solutionPath.get() : path) {
+            solution.add(position);
+        }
+        return solution;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Search for a solution starting with the last position of the path (index: number of moves).
+     * The consecutive positions are searched by forked tasks up to the split depth and sequentially afterwards.
+     */
+    private static class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Board board;
+        private final long[] path;
+        private final int numberOfMoves;
+        private final int splitDepth;
+        private final AtomicReference<long[]> solutionPath;
+        private final FailedPositions failedPositions;
+        private final PagodaFunctions pagodaFunctions;
+
+        private SearchTask(Board board, long[] path, int numberOfMoves, int splitDepth, AtomicReference<long[]> solutionPath,
+                           FailedPositions failedPositions, PagodaFunctions pagodaFunctions) {
+            this.board = board;
+            this.path = path;
+            this.numberOfMoves = numberOfMoves;
+            this.splitDepth = splitDepth;
+            this.solutionPath = solutionPath;
+            this.failedPositions = failedPositions;
+            this.pagodaFunctions = pagodaFunctions;
+        }
+
+        @Override
+        protected void compute() {
+            if (numberOfMoves >= splitDepth) {
+                if (new DepthFirstSearch(board, failedPositions, pagodaFunctions, path.length).search(path, numberOfMoves, this::isSolved)) {
+                    solutionPath.compareAndSet(null, path);
+                }
+                return;
+            }
+            if (isSolved() || numberOfMoves + 1 >= path.length) {
+                return;
+            }
+            long[] consecutivePositions = new long[board.getMoveMasks().length];
+            int numberOfConsecutivePositions = board.getConsecutivePositions(path[numberOfMoves], consecutivePositions);
+            SearchTask[] tasks = new SearchTask[numberOfConsecutivePositions];
+            int numberOfTasks = 0;
+            for (int i = 0; i < numberOfConsecutivePositions; i++) {
+                long[] consecutivePath = path.clone();
+                consecutivePath[numberOfMoves + 1] = consecutivePositions[i];
+                if (isEndPosition(consecutivePositions[i])) {
+                    solutionPath.compareAndSet(null, consecutivePath);
+                    return;
+                }
+                if (pagodaFunctions.canReachTarget(consecutivePositions[i]) && !failedPositions.contains(consecutivePositions[i])) {
+                    tasks[numberOfTasks++] = new SearchTask(board, consecutivePath, numberOfMoves + 1, splitDepth, solutionPath, failedPositions,
+                            pagodaFunctions);
+                }
+            }
+            // fork in reverse order: the owning thread pops the first consecutive position first (same order as the
+            // sequential search) while idle threads steal the last ones
+            for (int i = numberOfTasks - 1; i > 0; i--) {
+                tasks[i].fork();
+            }
+            if (numberOfTasks > 0) {
+                tasks[0].compute();
+            }
+            for (int i = 1; i < numberOfTasks; i++) {
+                tasks[i].join();
+            }
+        }
+
+        /**
+         * @return true if a solution was found (by any task), i.e. the search can be stopped
+         */
+        private boolean isSolved() {
+            return solutionPath.get() != null;
+        }
+
+        private boolean isEndPosition(long position) {
+            if (board.getEndPosition() != null) {
+                return board.getEndPosition() == position;
+            }
+            return board.getNumberOfPegs(position) == 1;
+        }
+    }
+}
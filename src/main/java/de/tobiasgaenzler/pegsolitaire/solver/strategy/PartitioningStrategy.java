@@ -0,0 +1,256 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ConcurrentLongHashSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongFileReader;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongFileWriter;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.SortedLongArrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored).
+ * Every set of positions is split into partitions (files) by the hash of the positions:
+ * <ul>
+ *     <li>The consecutive positions of each partition are computed in parallel and appended to the file of the
+ *     partition they belong to (buffered per task, i.e. there is hardly any contention).</li>
+ *     <li>Then the partitions are sorted and duplicates are removed independently of each other (in parallel).</li>
+ *     <li>The preceding positions of the winning positions are partitioned the same way, i.e. the winning positions
+ *     of a partition are the reachable positions of the partition which are preceding positions.</li>
+ * </ul>
+ * Only the partitions processed at the same time need to fit into memory, i.e. the memory usage can be
+ * reduced by increasing the number of partitions (command line e.g. --partitions=256).
+ * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ */
+@Component
+public class PartitioningStrategy implements WinningPositionsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitioningStrategy.class);
+    public static final String NAME = "winningPositionsPartitioned";
+    // number of positions per partition which are collected before they are written to the partition file
+    private static final int BUFFER_SIZE = 1 << 10;
+    private final SerializationService serializationService;
+    private final int numberOfPartitions;
+
+    @Autowired
+    public PartitioningStrategy(SerializationService serializationService, @Value("${partitions:64}") int numberOfPartitions) {
+        if (numberOfPartitions <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + numberOfPartitions);
+        }
+        this.serializationService = serializationService;
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
+    @Override
+    public List<Path> solve(Board board, Long startPosition) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        List<Path> txtFilePaths = new ArrayList<>();
+        Path directory = PositionFiles.createTemporaryDirectory(NAME);
+        try {
+            assembleReachablePositions(board, startPosition, directory);
+            Instant start = Instant.now();
+            removeNonWinningPositions(board, numberOfStartPins, directory);
+            logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+            for (int pegs = numberOfStartPins; pegs > 0; pegs--) {
+                Path binaryFilePath = serializationService.getBinaryPositionFilePath(board, pegs);
+                concatenatePartitions(getPartitionPaths(directory, "winning", pegs), binaryFilePath);
+                if (PositionFiles.isNotEmptyOrDelete(binaryFilePath)) {
+                    txtFilePaths.add(serializationService.convertBinaryFileToTxtFile(binaryFilePath));
+                }
+            }
+        } finally {
+            PositionFiles.deleteDirectory(directory);
+        }
+        return txtFilePaths;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Assemble all reachable positions starting with startPosition and store them in sorted partition files.
+     *
+     * @param board         the board where the positions live
+     * @param startPosition start finding positions with this start position
+     * @param directory     directory for the partition files
+     */
+    private void assembleReachablePositions(Board board, Long startPosition, Path directory) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        // only canonical forms are stored, i.e. no symmetric duplicates
+        LongFileWriter[] writers = openWriters(getPartitionPaths(directory, "reachable", numberOfStartPins));
+        try {
+            PartitionWriter writer = new PartitionWriter(writers);
+            writer.accept(board.canonicalize(startPosition));
+            writer.flush();
+        } finally {
+            closeWriters(writers);
+        }
+
+        long totalTime = 0L;
+        for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
+            Instant start = Instant.now();
+            IntFunction<Path> incomingPaths = getPartitionPaths(directory, "incoming", numberOfRemainingPieces);
+            IntFunction<Path> reachablePaths = getPartitionPaths(directory, "reachable", numberOfRemainingPieces);
+            distribute(board, getPartitionPaths(directory, "reachable", numberOfRemainingPieces + 1), true, incomingPaths);
+            long count = IntStream.range(0, numberOfPartitions).parallel().mapToLong(partition -> {
+                long[] positions = LongFileReader.readAll(incomingPaths.apply(partition));
+                long[] reachablePositions = SortedLongArrays.sortUnique(positions, positions.length);
+                write(reachablePositions, reachablePaths.apply(partition));
+                PositionFiles.delete(incomingPaths.apply(partition));
+                return reachablePositions.length;
+            }).sum();
+
+            totalTime += Duration.between(start, Instant.now()).toMillis();
+            logger.info("{}: {} reachable positions in {} ms", numberOfRemainingPieces, count,
+                    Duration.between(start, Instant.now()).toMillis());
+        }
+        logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
+    }
+
+    /**
+     * Keep all positions which are part of a solution i.e. reachable positions which are preceding positions of
+     * winning positions with one peg less.
+     *
+     * @param board             the board, the positions live on
+     * @param numberOfStartPins number of pegs of the start position
+     * @param directory         directory of the partition files
+     */
+    private void removeNonWinningPositions(Board board, int numberOfStartPins, Path directory) {
+        for (int partition = 0; partition < numberOfPartitions; partition++) {
+            PositionFiles.move(getPartitionPaths(directory, "reachable", 1).apply(partition),
+                    getPartitionPaths(directory, "winning", 1).apply(partition));
+        }
+        for (int pegs = 2; pegs <= numberOfStartPins; pegs++) {
+            Instant start = Instant.now();
+            IntFunction<Path> incomingPaths = getPartitionPaths(directory, "incoming", pegs);
+            IntFunction<Path> reachablePaths = getPartitionPaths(directory, "reachable", pegs);
+            IntFunction<Path> winningPaths = getPartitionPaths(directory, "winning", pegs);
+            distribute(board, getPartitionPaths(directory, "winning", pegs - 1), false, incomingPaths);
+            long[] counts = IntStream.range(0, numberOfPartitions).parallel().mapToObj(partition -> {
+                long[] positions = LongFileReader.readAll(incomingPaths.apply(partition));
+                long[] precedingPositions = SortedLongArrays.sortUnique(positions, positions.length);
+                long[] reachablePositions = LongFileReader.readAll(reachablePaths.apply(partition));
+                long[] winningPositions = SortedLongArrays.intersect(reachablePositions, precedingPositions);
+                write(winningPositions, winningPaths.apply(partition));
+                PositionFiles.delete(incomingPaths.apply(partition));
+                PositionFiles.delete(reachablePaths.apply(partition));
+                return new long[]{reachablePositions.length, winningPositions.length};
+            }).reduce(new long[2], (counts1, counts2) -> new long[]{counts1[0] + counts2[0], counts1[1] + counts2[1]});
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, counts[1], (Duration.between(start, Instant.now()).toMillis()), counts[0]);
+        }
+    }
+
+    /**
+     * Compute the canonical consecutive (or preceding) positions of all partitions in parallel and append them to the
+     * partition files they belong to.
+     */
+    private void distribute(Board board, IntFunction<Path> sourcePaths, boolean consecutive, IntFunction<Path> targetPaths) {
+        LongFileWriter[] writers = openWriters(targetPaths);
+        try {
+            IntStream.range(0, numberOfPartitions).parallel().forEach(partition -> {
+                long[] positions = LongFileReader.readAll(sourcePaths.apply(partition));
+                long[] symmetricPositions = new long[board.getNumberOfSymmetries()];
+                PartitionWriter writer = new PartitionWriter(writers);
+                for (long position : positions) {
+                    board.getSymmetricPositions(position, symmetricPositions);
+                    if (consecutive) {
+                        board.forEachConsecutiveCanonicalPosition(position, symmetricPositions, writer);
+                    } else {
+                        board.forEachPrecedingCanonicalPosition(position, symmetricPositions, writer);
+                    }
+                }
+                writer.flush();
+            });
+        } finally {
+            closeWriters(writers);
+        }
+    }
+
+    private LongFileWriter[] openWriters(IntFunction<Path> paths) {
+        LongFileWriter[] writers = new LongFileWriter[numberOfPartitions];
+        for (int partition = 0; partition < numberOfPartitions; partition++) {
+            writers[partition] = new LongFileWriter(paths.apply(partition));
+        }
+        return writers;
+    }
+
+    private void closeWriters(LongFileWriter[] writers) {
+        for (LongFileWriter writer : writers) {
+            writer.close();
+        }
+    }
+
+    private void concatenatePartitions(IntFunction<Path> partitionPaths, Path target) {
+        try (LongFileWriter writer = new LongFileWriter(target)) {
+            for (int partition = 0; partition < numberOfPartitions; partition++) {
+                writer.write(LongFileReader.readAll(partitionPaths.apply(partition)));
+            }
+        }
+    }
+
+    private void write(long[] positions, Path path) {
+        try (LongFileWriter writer = new LongFileWriter(path)) {
+            writer.write(positions);
+        }
+    }
+
+    private IntFunction<Path> getPartitionPaths(Path directory, String name, int pegs) {
+        return partition -> directory.resolve(name + "_" + pegs + "_" + partition + ".bin");
+    }
+
+    private int getPartition(long position) {
+        return (int) ((ConcurrentLongHashSet.hash(position) >>> 1) % numberOfPartitions);
+    }
+
+    /**
+     * Collects positions per partition and appends them to the (shared) partition files when the buffer of a partition is full.
+     * Not thread safe, i.e. each task uses its own instance.
+     */
+    private final class PartitionWriter implements LongConsumer {
+        private final LongFileWriter[] writers;
+        private final long[][] buffers = new long[numberOfPartitions][BUFFER_SIZE];
+        private final int[] sizes = new int[numberOfPartitions];
+
+        private PartitionWriter(LongFileWriter[] writers) {
+            this.writers = writers;
+        }
+
+        @Override
+        public void accept(long position) {
+            int partition = getPartition(position);
+            buffers[partition][sizes[partition]++] = position;
+            if (sizes[partition] == BUFFER_SIZE) {
+                flush(partition);
+            }
+        }
+
+        private void flush() {
+            for (int partition = 0; partition < numberOfPartitions; partition++) {
+                flush(partition);
+            }
+        }
+
+        private void flush(int partition) {
+            LongFileWriter writer = writers[partition];
+            synchronized (writer) {
+                writer.write(buffers[partition], sizes[partition]);
+            }
+            sizes[partition] = 0;
+        }
+    }
+}
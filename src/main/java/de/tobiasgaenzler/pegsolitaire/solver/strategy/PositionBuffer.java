@@ -0,0 +1,30 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed size buffer for positions which can be filled by the visitor methods of the board
+ * e.g. {@link de.tobiasgaenzler.pegsolitaire.board.Board#forEachConsecutiveCanonicalPosition}.
+ * Not thread safe.
+ */
+class PositionBuffer implements LongConsumer {
+    private final long[] positions;
+    private int size = 0;
+
+    PositionBuffer(int capacity) {
+        positions = new long[capacity];
+    }
+
+    @Override
+    public void accept(long position) {
+        positions[size++] = position;
+    }
+
+    long[] getPositions() {
+        return positions;
+    }
+
+    int size() {
+        return size;
+    }
+}
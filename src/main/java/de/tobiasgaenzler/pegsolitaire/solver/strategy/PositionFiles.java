@@ -0,0 +1,98 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionFileFormat;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * File handling for strategies which store intermediate sets of positions in temporary files.
+ */
+final class PositionFiles {
+    private static final Logger logger = LoggerFactory.getLogger(PositionFiles.class);
+
+    private PositionFiles() {
+    }
+
+    /**
+     * Create a temporary directory in the working directory (i.e. on the same disk as the resulting files).
+     *
+     * @param prefix prefix of the directory name
+     * @return the directory
+     */
+    static Path createTemporaryDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory(Paths.get("").toAbsolutePath(), prefix);
+        } catch (IOException e) {
+            logger.error("Could not create temporary directory:  {}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param path file to check
+     * @return true if the file contains data, empty files are deleted
+     */
+    static boolean isNotEmptyOrDelete(Path path) {
+        try {
+            if (Files.size(path) > 0L) {
+                return true;
+            }
+        } catch (IOException e) {
+            logger.error("Could not read size of file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        delete(path);
+        return false;
+    }
+
+    /**
+     * @param path   file to check
+     * @param format format of the file
+     * @return true if the file contains positions, files without positions are deleted
+     */
+    static boolean containsPositionsOrDelete(Path path, PositionFileFormat format) {
+        boolean containsPositions;
+        try (PositionReader reader = format.openReader(path)) {
+            containsPositions = reader.hasNext();
+        }
+        if (!containsPositions) {
+            delete(path);
+        }
+        return containsPositions;
+    }
+
+    static void move(Path source, Path target) {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Could not move file {} to {}:  {}", source, target, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("Could not delete file {}:  {}", path, e.getMessage());
+        }
+    }
+
+    static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            // delete files before the directories containing them
+            paths.sorted(Comparator.reverseOrder()).forEach(PositionFiles::delete);
+        } catch (IOException e) {
+            logger.error("Could not delete directory {}:  {}", directory, e.getMessage());
+        }
+    }
+}
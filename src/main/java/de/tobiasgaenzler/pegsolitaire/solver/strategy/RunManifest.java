@@ -0,0 +1,140 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Records which layer files of a run (board and start position) are complete, i.e. an interrupted run can be resumed
+ * with the last complete layer. The manifest is a properties file which is replaced atomically after each layer:
+ * <pre>
+ * board=English Board
+ * startPosition=...
+ * complementDuality=false
+ * pagodaPruning=false
+ * reachable.31=...   (number of reachable positions with 31 pegs)
+ * winning.5=...      (number of winning positions with 5 pegs)
+ * </pre>
+ * Thread safe.
+ */
+class RunManifest {
+    private static final Logger logger = LoggerFactory.getLogger(RunManifest.class);
+    static final String REACHABLE = "reachable";
+    static final String WINNING = "winning";
+    private static final String BOARD = "board";
+    private static final String START_POSITION = "startPosition";
+    private static final String COMPLEMENT_DUALITY = "complementDuality";
+    private static final String PAGODA_PRUNING = "pagodaPruning";
+
+    private final Path path;
+    private final Properties properties = new Properties();
+
+    private RunManifest(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Load the manifest of a run. The manifest is empty if there is none or if it belongs to another start position
+     * or another mode (layers computed with complement duality or pagoda pruning contain different positions).
+     *
+     * @param board             the board of the run
+     * @param startPosition     the start position of the run
+     * @param complementDuality true if the layers are computed using complement duality
+     * @param pagodaPruning     true if the reachable layers are pruned with pagoda functions
+     * @return the manifest of the run
+     */
+    static RunManifest load(Board board, long startPosition, boolean complementDuality, boolean pagodaPruning) {
+        RunManifest manifest = new RunManifest(Paths.get(board.getName() + "_positions.manifest"));
+        if (Files.exists(manifest.path)) {
+            try (InputStream inputStream = Files.newInputStream(manifest.path)) {
+                manifest.properties.load(inputStream);
+            } catch (IOException e) {
+                logger.warn("Could not read manifest {}:  {}", manifest.path, e.getMessage());
+                manifest.properties.clear();
+            }
+            if (!board.getName().equals(manifest.properties.getProperty(BOARD))
+                    || !Long.toString(startPosition).equals(manifest.properties.getProperty(START_POSITION))
+                    || complementDuality != Boolean.parseBoolean(manifest.properties.getProperty(COMPLEMENT_DUALITY))
+                    || pagodaPruning != Boolean.parseBoolean(manifest.properties.getProperty(PAGODA_PRUNING))) {
+                logger.info("Manifest {} belongs to another run and is ignored", manifest.path);
+                manifest.properties.clear();
+            }
+        }
+        manifest.properties.setProperty(BOARD, board.getName());
+        manifest.properties.setProperty(START_POSITION, Long.toString(startPosition));
+        manifest.properties.setProperty(COMPLEMENT_DUALITY, Boolean.toString(complementDuality));
+        manifest.properties.setProperty(PAGODA_PRUNING, Boolean.toString(pagodaPruning));
+        return manifest;
+    }
+
+    /**
+     * @param phase {@link #REACHABLE} or {@link #WINNING}
+     * @param pegs  number of pegs of the layer
+     * @return number of positions of the layer or -1 if the layer is not complete (or the recorded value is not valid)
+     */
+    synchronized long getCount(String phase, int pegs) {
+        String count = properties.getProperty(phase + "." + pegs, "-1");
+        try {
+            return Long.parseLong(count);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number of positions in manifest {} for {}.{}:  {}", path, phase, pegs, count);
+            return -1L;
+        }
+    }
+
+    /**
+     * Record that the file of the layer is complete.
+     *
+     * @param phase {@link #REACHABLE} or {@link #WINNING}
+     * @param pegs  number of pegs of the layer
+     * @param count number of positions of the layer
+     */
+    synchronized void markComplete(String phase, int pegs, long count) {
+        properties.setProperty(phase + "." + pegs, Long.toString(count));
+        save();
+    }
+
+    /**
+     * Remove the record of a layer (e.g. because the file is not valid).
+     */
+    synchronized void markIncomplete(String phase, int pegs) {
+        properties.remove(phase + "." + pegs);
+        save();
+    }
+
+    /**
+     * Delete the manifest (the run is finished).
+     */
+    synchronized void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("Could not delete manifest {}:  {}", path, e.getMessage());
+        }
+    }
+
+    private void save() {
+        Path temporaryPath = Paths.get(path + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temporaryPath)) {
+            properties.store(outputStream, "complete layers");
+        } catch (IOException e) {
+            logger.error("Could not write manifest {}:  {}", temporaryPath, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Could not replace manifest {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package de.tobiasgaenzler.pegsolitaire.solver.strategy;
 
 import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.PositionFileHeader;
 import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ConcurrentLongHashSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda.PagodaFunctions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
@@ -12,36 +17,128 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
 
 /**
- * This strategy will assemble all winning positions (modulo symmetry). Sets of positions are written to file and
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored). Sets of positions are written to file and
  * read from file when needed again which reduces the memory footprint.
+ * The files contain the dense representation of the positions (see {@link Board#compress(long)}), e.g. 5 bytes per
+ * position of the English board.
+ * Files are written by a background thread while the next layer is computed from the positions which are still in
+ * memory, i.e. files are only read when the positions are not in memory anymore. When the non winning positions are
+ * removed, the reachable positions of a layer are streamed from file instead of being read into a set.
+ * Complete layers are recorded in a manifest (see {@link RunManifest}), i.e. an interrupted run is resumed with the
+ * last complete and valid layer (header and checksum of the file are checked) when it is started again.
  * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ * <p>
+ * Complement duality (optional, see {@link #isSelfDual(Board, long)}): a move from p to q corresponds to the reverse
+ * move from ~q to ~p (complement on the layout), i.e. a position p is part of a solution from start position S to
+ * end position E if and only if ~p is part of a solution from ~E to ~S. If the end position is the complement of the
+ * start position (modulo symmetry) like on the english board, the winning positions with n pegs are the complements
+ * of the winning positions with H - n pegs (H holes). In this case the reachable positions are only assembled down to
+ * the middle layer, the winning positions of the middle layers are the reachable positions whose complement is
+ * reachable as well, the non winning positions are removed from the middle layer upwards and the remaining layers are
+ * the complements of these.
+ * <p>
+ * Pagoda pruning (optional, see {@link PagodaFunctions}): reachable positions which can not reach the end position
+ * according to the pagoda functions of the board are not stored and the end position is the only reachable position
+ * of its layer, i.e. the reachable layers are smaller and the winning positions are the positions from which the end
+ * position can be reached (like with complement duality, instead of all reachable positions with one peg). Boards
+ * without end position are not pruned.
  */
 @Component
 public class SerializingStrategy implements WinningPositionsStrategy {
 
     private static final Logger logger = LoggerFactory.getLogger(SerializingStrategy.class);
     public static final String NAME = "winningPositions";
-    private final List<Path> binaryFilePaths = new ArrayList<>();
-    private final List<Path> txtFilePaths = new ArrayList<>();
     private final SerializationService serializationService;
+    private final boolean complementDuality;
+    private final boolean pagodaPruning;
+    private ExecutorService writerExecutor;
+    // write of the last layer (at most one layer is written at a time)
+    private CompletableFuture<Void> pendingWrite;
 
-    @Autowired
     public SerializingStrategy(SerializationService serializationService) {
+        this(serializationService, false, false);
+    }
+
+    public SerializingStrategy(SerializationService serializationService, boolean complementDuality) {
+        this(serializationService, complementDuality, false);
+    }
+
+    /**
+     * @param complementDuality compute only half of the layers if the problem is self dual (see {@link #isSelfDual(Board, long)}),
+     *                          the winning positions of the lowest layer are the end position in this case (instead of
+     *                          all reachable positions with one peg)
+     * @param pagodaPruning     do not store reachable positions which can not reach the end position according to the
+     *                          pagoda functions of the board, the winning positions of the lowest layer are the end
+     *                          position in this case
+     */
+    @Autowired
+    public SerializingStrategy(SerializationService serializationService, @Value("${complementDuality:false}") boolean complementDuality,
+                               @Value("${pagodaPruning:false}") boolean pagodaPruning) {
         this.serializationService = serializationService;
+        this.complementDuality = complementDuality;
+        this.pagodaPruning = pagodaPruning;
     }
 
     @Override
     public List<Path> solve(Board board, Long startPosition) {
-        binaryFilePaths.clear();
-        assembleReachablePositions(board, startPosition);
-        Instant start = Instant.now();
-        removeNonWinningPositions(board);
-        binaryFilePaths.forEach(binaryFilePath -> txtFilePaths.add(serializationService.convertBinaryFileToTxtFile(binaryFilePath)));
-        logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        boolean selfDual = complementDuality && isSelfDual(board, startPosition);
+        if (complementDuality && !selfDual) {
+            logger.info("End position is not the complement of the start position, all layers are computed");
+        }
+        int numberOfHoles = Long.bitCount(board.getLayout());
+        // number of pegs of the lowest layer
+        int endPins = selfDual ? numberOfHoles - numberOfStartPins : 1;
+        RunManifest manifest = RunManifest.load(board, startPosition, selfDual, pagodaPruning);
+        writerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "layer-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingWrite = CompletableFuture.completedFuture(null);
+        try {
+            if (!hasEndPositionOfSameClass(board, startPosition, selfDual || pagodaPruning)) {
+                // moves do not change the class of a position, i.e. no position of the start position's class is winning
+                logger.info("No end position has the class of the start position, there are no winning positions");
+                for (int pegs = numberOfStartPins; pegs >= endPins; pegs--) {
+                    storeInBackground(board, new ConcurrentLongHashSet(), pegs, manifest, RunManifest.WINNING);
+                }
+                pendingWrite.join();
+            } else if (selfDual) {
+                // middle layers: lower and upper (equal if the number of holes is even)
+                int lowerMiddlePins = numberOfHoles / 2;
+                int upperMiddlePins = numberOfHoles - lowerMiddlePins;
+                LongSet lowerMiddlePositions = assembleReachablePositions(board, startPosition, manifest, lowerMiddlePins);
+                Instant start = Instant.now();
+                LongSet upperMiddlePositions = assembleMiddleWinningPositions(board, lowerMiddlePositions, lowerMiddlePins, upperMiddlePins, manifest);
+                removeNonWinningPositions(board, upperMiddlePins + 1, numberOfStartPins, upperMiddlePositions, manifest);
+                deriveComplementaryLayers(board, upperMiddlePins + 1, numberOfStartPins, manifest);
+                pendingWrite.join();
+                logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+            } else {
+                LongSet endPositions = assembleReachablePositions(board, startPosition, manifest, 1);
+                Instant start = Instant.now();
+                removeNonWinningPositions(board, 2, numberOfStartPins, endPositions, manifest);
+                pendingWrite.join();
+                logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+            }
+        } finally {
+            writerExecutor.shutdown();
+        }
+        List<Path> txtFilePaths = new ArrayList<>();
+        for (int pegs = numberOfStartPins; pegs >= endPins; pegs--) {
+            txtFilePaths.add(serializationService.convertCompactFileToTxtFile(board, serializationService.getCompactPositionFilePath(board, pegs)));
+        }
+        manifest.delete();
         return txtFilePaths;
     }
 
@@ -51,110 +148,280 @@ public class SerializingStrategy implements WinningPositionsStrategy {
     }
 
     /**
-     * Assemble all reachable positions starting with startPosition.
+     * The problem is self dual if the end position of the board is the complement of the start position (modulo symmetry).
+     *
+     * @param board         the board
+     * @param startPosition the start position
+     * @return true if the winning positions with n pegs are the complements of the winning positions with H - n pegs
+     */
+    static boolean isSelfDual(Board board, long startPosition) {
+        Long endPosition = board.getEndPosition();
+        return endPosition != null && board.canonicalize(board.getLayout() ^ startPosition) == board.canonicalize(endPosition);
+    }
+
+    /**
+     * Moves do not change the class of a position (see {@link Board#hasEndPositionOfSameClass(long)}). Positions are
+     * canonical, i.e. any symmetric position of the start position may reach the end position.
+     *
+     * @param board                  the board
+     * @param startPosition          the start position
+     * @param endPositionOfBoardOnly true if the end position of the board is the only end position, otherwise all
+     *                               positions with one peg are end positions
+     * @return false if no end position has the class of the start position
+     */
+    private static boolean hasEndPositionOfSameClass(Board board, long startPosition, boolean endPositionOfBoardOnly) {
+        if (endPositionOfBoardOnly) {
+            return LongStream.of(board.getSymmetricPositions(startPosition)).anyMatch(board::hasEndPositionOfSameClass);
+        }
+        return board.getPositionClassifier().isOnePegClass(startPosition);
+    }
+
+    /**
+     * Assemble all reachable positions starting with startPosition (or the last complete layer of an interrupted run).
      * Use the stream().parallel() for concurrency.
      *
      * @param board         the board where the positions live
      * @param startPosition start finding positions with this start position
+     * @param manifest      manifest of the run
+     * @param lastPins      number of pegs of the last layer which is assembled
+     * @return the reachable positions with lastPins pegs (still in memory)
      */
-    private void assembleReachablePositions(Board board, Long startPosition) {
+    private LongSet assembleReachablePositions(Board board, Long startPosition, RunManifest manifest, int lastPins) {
         int numberOfStartPins = board.getNumberOfPegs(startPosition);
-        Path path = serializationService.storePositionsInBinaryFile(board, Set.of(startPosition), numberOfStartPins);
-        binaryFilePaths.add(path);
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        int resumePegs = numberOfStartPins + 1;
+        while (resumePegs > lastPins && isReachableLayerComplete(board, manifest, resumePegs - 1)) {
+            resumePegs--;
+        }
+        LongSet previousPositions;
+        if (resumePegs > numberOfStartPins) {
+            // only canonical forms are stored, i.e. no symmetric duplicates
+            previousPositions = new ConcurrentLongHashSet();
+            previousPositions.add(board.canonicalize(startPosition));
+            storeInBackground(board, previousPositions, numberOfStartPins, manifest, RunManifest.REACHABLE);
+            resumePegs = numberOfStartPins;
+        } else {
+            logger.info("Resuming with reachable positions with {} pegs", resumePegs);
+            previousPositions = readLayer(board, resumePegs);
+        }
 
+        PagodaFunctions pagodaFunctions = PagodaFunctions.forCanonicalPositions(board);
         long totalTime = 0L;
-        for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
+        for (int numberOfRemainingPieces = resumePegs - 1; (numberOfRemainingPieces >= lastPins); numberOfRemainingPieces--) {
             Instant start = Instant.now();
-            Set<Long> previousPositions = serializationService.readPositionsFromBinaryFile(path);
-            Set<Long> consecutivePositions = ConcurrentHashMap.newKeySet();
+            LongSet consecutivePositions = new ConcurrentLongHashSet();
+            LongConsumer addConsecutivePosition = getPositionConsumer(board, consecutivePositions, numberOfRemainingPieces, pagodaFunctions);
             previousPositions.stream().parallel().forEach(currentPosition -> {
-                for (long consecutivePosition : board.getConsecutivePositions(currentPosition)) {
-                    if (consecutivePositions.contains(consecutivePosition)) {
-                        continue;
-                    }
-                    boolean inSet = false;
-                    for (long symPos : board.getSymmetricPositions(consecutivePosition)) {
-                        //check if a symmetric position is already in the set
-                        if (consecutivePositions.contains(symPos)) {
-                            inSet = true;
-                            break;
-                        }
-                    }
-                    //add position if no equivalent (symmetric) position is already in set
-                    if (!inSet) {
-                        consecutivePositions.add(consecutivePosition);
-                    }
-                }
+                // the symmetric positions of the consecutive positions are derived from these via the symmetric move masks
+                long[] symmetricPositions = symmetricPositionsBuffer.get();
+                board.getSymmetricPositions(currentPosition, symmetricPositions);
+                board.forEachConsecutiveCanonicalPosition(currentPosition, symmetricPositions, addConsecutivePosition);
             });
-            path = serializationService.storePositionsInBinaryFile(board, consecutivePositions, numberOfRemainingPieces);
-            binaryFilePaths.add(path);
+            storeInBackground(board, consecutivePositions, numberOfRemainingPieces, manifest, RunManifest.REACHABLE);
+            previousPositions = consecutivePositions;
 
             totalTime += Duration.between(start, Instant.now()).toMillis();
-            logger.info("{}: {} reachable positions in {} ms", numberOfRemainingPieces, consecutivePositions.size(),
-                    Duration.between(start, Instant.now()).toMillis());
-            removeSymmetricPositions(board, consecutivePositions);
+            logger.info("{}: {} reachable positions in {} ms ({} bytes/position)", numberOfRemainingPieces, consecutivePositions.size(),
+                    Duration.between(start, Instant.now()).toMillis(), consecutivePositions.getMemoryUsage() / Math.max(1L, consecutivePositions.size()));
         }
         logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
+        return previousPositions;
     }
 
     /**
-     * Due to concurrency there might be symmetric entries in the sets of reachable positions.
-     * Remove symmetric entries from reachable positions.
-     * Removing the positions after calculation is faster than preventing that symmetric positions are added
-     * (using synchronization).
+     * With pagoda pruning only positions which can reach the end position according to the pagoda functions are added,
+     * the layer of the end position only contains the end position (the pagoda functions do not necessarily reject
+     * all other positions with as many pegs as the end position).
      *
-     * @param board Board where the positions live
+     * @return consumer which adds the reachable positions with numberOfRemainingPieces pegs to positions
      */
-    private void removeSymmetricPositions(Board board, Set<Long> positions) {
-        Set<Long> redundantPositions = ConcurrentHashMap.newKeySet();
-        Instant start = Instant.now();
-        positions.stream().parallel().forEach(position -> {
-            for (long symmetricPosition : board.getSymmetricPositions(position)) {
-                if (symmetricPosition != position && positions.contains(symmetricPosition)) {
-                    redundantPositions.add(position);
-                    break;
-                }
-            }
-        });
-        for (Long redundantPosition : redundantPositions) {
-            for (long symmetricPosition : board.getSymmetricPositions(redundantPosition)) {
-                if (symmetricPosition != redundantPosition && positions.contains(symmetricPosition)) {
-                    positions.remove(redundantPosition);
-                    break;
+    private LongConsumer getPositionConsumer(Board board, LongSet positions, int numberOfRemainingPieces, PagodaFunctions pagodaFunctions) {
+        Long endPosition = board.getEndPosition();
+        if (!pagodaPruning || endPosition == null) {
+            return positions::add;
+        }
+        if (numberOfRemainingPieces == board.getNumberOfPegs(endPosition)) {
+            long canonicalEndPosition = board.canonicalize(endPosition);
+            return position -> {
+                if (position == canonicalEndPosition) {
+                    positions.add(position);
                 }
+            };
+        }
+        return position -> {
+            if (pagodaFunctions.canReachTarget(position)) {
+                positions.add(position);
             }
+        };
+    }
+
+    /**
+     * The winning positions of the middle layers are the reachable positions whose complement is reachable as well
+     * (the complement can reach the end position by the reverse moves).
+     *
+     * @param board                the board, the positions live on
+     * @param lowerMiddlePositions the reachable positions of the lower middle layer
+     * @param lowerMiddlePins      number of pegs of the lower middle layer
+     * @param upperMiddlePins      number of pegs of the upper middle layer (H - lowerMiddlePins)
+     * @param manifest             manifest of the run
+     * @return the winning positions of the upper middle layer
+     */
+    private LongSet assembleMiddleWinningPositions(Board board, LongSet lowerMiddlePositions, int lowerMiddlePins, int upperMiddlePins, RunManifest manifest) {
+        Instant start = Instant.now();
+        pendingWrite.join();
+        LongSet upperMiddlePositions = lowerMiddlePins == upperMiddlePins ? lowerMiddlePositions : readLayer(board, upperMiddlePins);
+        LongSet lowerWinningPositions = new ConcurrentLongHashSet();
+        lowerMiddlePositions.stream().parallel()
+                .filter(position -> upperMiddlePositions.contains(complement(board, position)))
+                .forEach(lowerWinningPositions::add);
+        storeInBackground(board, lowerWinningPositions, lowerMiddlePins, manifest, RunManifest.WINNING);
+        LongSet upperWinningPositions = lowerWinningPositions;
+        if (lowerMiddlePins != upperMiddlePins) {
+            upperWinningPositions = complement(board, lowerWinningPositions);
+            storeInBackground(board, upperWinningPositions, upperMiddlePins, manifest, RunManifest.WINNING);
         }
-        if (!redundantPositions.isEmpty()) {
-            logger.info("Removed {} symmetric positions in {} ms", redundantPositions.size(), Duration.between(start, Instant.now()).toMillis());
+        logger.info("{}/{}: {} winning positions of middle layers in {} ms", lowerMiddlePins, upperMiddlePins, lowerWinningPositions.size(),
+                Duration.between(start, Instant.now()).toMillis());
+        return upperWinningPositions;
+    }
+
+    /**
+     * The winning positions with H - n pegs are the complements of the winning positions with n pegs.
+     *
+     * @param board     the board, the positions live on
+     * @param firstPins number of pegs of the first layer which is complemented
+     * @param lastPins  number of pegs of the last layer which is complemented
+     * @param manifest  manifest of the run
+     */
+    private void deriveComplementaryLayers(Board board, int firstPins, int lastPins, RunManifest manifest) {
+        int numberOfHoles = Long.bitCount(board.getLayout());
+        // the last layer of winning positions may still be written
+        pendingWrite.join();
+        for (int pegs = firstPins; pegs <= lastPins; pegs++) {
+            int complementPegs = numberOfHoles - pegs;
+            if (isComplete(board, manifest, RunManifest.WINNING, complementPegs)) {
+                logger.info("{}: winning positions are complete", complementPegs);
+                continue;
+            }
+            Instant start = Instant.now();
+            LongSet complementPositions = new ConcurrentLongHashSet();
+            try (LongStream positions = serializationService.streamPositionsFromCompactFile(board, serializationService.getCompactPositionFilePath(board, pegs))) {
+                positions.parallel().map(position -> complement(board, position)).forEach(complementPositions::add);
+            }
+            logger.info("{}: {} winning positions (complement of {} pegs) in {} ms", complementPegs, complementPositions.size(), pegs,
+                    Duration.between(start, Instant.now()).toMillis());
+            storeInBackground(board, complementPositions, complementPegs, manifest, RunManifest.WINNING);
         }
     }
 
+    private LongSet complement(Board board, LongSet positions) {
+        LongSet complementPositions = new ConcurrentLongHashSet();
+        positions.stream().parallel().map(position -> complement(board, position)).forEach(complementPositions::add);
+        return complementPositions;
+    }
+
+    /**
+     * @return canonical form of the complement of the position (on the layout of the board)
+     */
+    private static long complement(Board board, long position) {
+        return board.canonicalize(board.getLayout() ^ position);
+    }
+
     /**
      * remove all positions which are not part of a solution.
+     * Each step keeps the winning positions of the previous layer in memory and streams the reachable positions of
+     * the current layer from file once, i.e. only the winning positions of two layers are held in memory.
      *
-     * @param board the board, the positions live on
+     * @param board              the board, the positions live on
+     * @param firstPins          number of pegs of the first layer
+     * @param numberOfStartPins  number of pegs of the start position
+     * @param followingPositions the winning positions with firstPins - 1 pegs
+     * @param manifest           manifest of the run
      */
-    private void removeNonWinningPositions(Board board) {
-        int numberOfPegs = binaryFilePaths.size();
-        // go backwards (files are ordered: 0: start position, ... , numberOfPegs-1: end position)
-        for (int pegs = numberOfPegs - 1; pegs > 0; pegs--) {
+    private void removeNonWinningPositions(Board board, int firstPins, int numberOfStartPins, LongSet followingPositions, RunManifest manifest) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        // the winning positions of the last iteration are still in memory (null: read from file when needed)
+        for (int pegs = firstPins; pegs <= numberOfStartPins; pegs++) {
+            if (isComplete(board, manifest, RunManifest.WINNING, pegs)) {
+                logger.info("{}: winning positions are complete", pegs);
+                followingPositions = null;
+                continue;
+            }
             Instant start = Instant.now();
-            Set<Long> positions = serializationService.readPositionsFromBinaryFile(binaryFilePaths.get(pegs - 1));
-            Set<Long> followingPositions = serializationService.readPositionsFromBinaryFile(binaryFilePaths.get(pegs));
-            Set<Long> winningPositions = ConcurrentHashMap.newKeySet();
-            positions.stream().parallel().forEach(position -> {
-                for (long consecutivePosition : board.getConsecutivePositions(position)) {
-                    for (long symmetricPosition : board.getSymmetricPositions(consecutivePosition)) {
-                        if (followingPositions.contains(symmetricPosition)) {
-                            winningPositions.add(position);
-                            break;
-                        }
-                    }
-                }
-            });
-            removeSymmetricPositions(board, winningPositions);
-            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.size(), (Duration.between(start, Instant.now()).toMillis()), positions.size());
-            serializationService.storePositionsInBinaryFile(board, winningPositions, numberOfPegs - pegs + 1);
+            if (followingPositions == null) {
+                followingPositions = readLayer(board, pegs - 1);
+            }
+            LongSet winningPositions = new ConcurrentLongHashSet();
+            LongSet currentFollowingPositions = followingPositions;
+            LongAdder numberOfPositions = new LongAdder();
+            // the reachable positions are streamed from file (one scan), only the winning positions are kept in memory
+            try (LongStream positions = serializationService.streamPositionsFromCompactFile(board, serializationService.getCompactPositionFilePath(board, pegs))) {
+                positions.parallel()
+                        .filter(position -> {
+                            numberOfPositions.increment();
+                            long[] symmetricPositions = symmetricPositionsBuffer.get();
+                            board.getSymmetricPositions(position, symmetricPositions);
+                            return board.hasConsecutiveCanonicalPosition(position, symmetricPositions, currentFollowingPositions::contains);
+                        })
+                        .forEach(winningPositions::add);
+            }
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.size(), (Duration.between(start, Instant.now()).toMillis()), numberOfPositions.sum());
+            storeInBackground(board, winningPositions, pegs, manifest, RunManifest.WINNING);
+            followingPositions = winningPositions;
+        }
+    }
+
+    /**
+     * The reachable positions of a layer are complete if the file contains the reachable positions or the winning
+     * positions (the reachable positions are not needed anymore in this case).
+     */
+    private boolean isReachableLayerComplete(Board board, RunManifest manifest, int pegs) {
+        return manifest.getCount(RunManifest.REACHABLE, pegs) >= 0
+                && (isComplete(board, manifest, RunManifest.REACHABLE, pegs) || isComplete(board, manifest, RunManifest.WINNING, pegs));
+    }
+
+    /**
+     * A layer whose file is not valid or does not contain the recorded positions is removed from the manifest. The
+     * record of the reachable positions is kept if the file contains the winning positions of the layer (the reachable
+     * positions are not needed anymore in this case).
+     *
+     * @return true if the layer is recorded in the manifest and the file is valid and contains the recorded positions
+     */
+    private boolean isComplete(Board board, RunManifest manifest, String phase, int pegs) {
+        long count = manifest.getCount(phase, pegs);
+        if (count < 0L) {
+            return false;
+        }
+        Optional<PositionFileHeader> header = serializationService.validateCompactFile(board, serializationService.getCompactPositionFilePath(board, pegs));
+        boolean samePhase = header.isPresent() && header.get().hasFlag(PositionFileHeader.WINNING) == RunManifest.WINNING.equals(phase);
+        if (samePhase && header.get().getCount() == count) {
+            return true;
         }
+        if (header.isEmpty() || samePhase) {
+            logger.info("{} positions with {} pegs are not valid and are computed again", phase, pegs);
+            manifest.markIncomplete(phase, pegs);
+        }
+        return false;
+    }
+
+    private LongSet readLayer(Board board, int pegs) {
+        return serializationService.readPositionsFromCompactFile(board, serializationService.getCompactPositionFilePath(board, pegs), new ConcurrentLongHashSet());
+    }
+
+    /**
+     * Write the positions to file in the background (writer thread) and record the layer in the manifest when the
+     * file is complete. Waits until the previous layer is written, i.e. the writer holds at most one layer which is
+     * still needed in memory anyway (to compute the next layer).
+     * The positions must not be modified afterwards.
+     */
+    private void storeInBackground(Board board, LongSet positions, int numberOfRemainingPieces, RunManifest manifest, String phase) {
+        int flags = PositionFileHeader.CANONICAL | (RunManifest.WINNING.equals(phase) ? PositionFileHeader.WINNING : 0);
+        pendingWrite.join();
+        pendingWrite = CompletableFuture.runAsync(() -> {
+            serializationService.storePositionsInCompactFile(board, positions, numberOfRemainingPieces, flags);
+            manifest.markComplete(phase, numberOfRemainingPieces, positions.size());
+        }, writerExecutor);
     }
-}
\ No newline at end of file
+}
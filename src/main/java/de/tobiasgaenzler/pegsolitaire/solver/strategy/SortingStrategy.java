@@ -0,0 +1,150 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PackedLongArray;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.SortedLongArrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * This strategy will assemble all winning positions (modulo symmetry, only canonical positions are stored).
+ * All sets of positions are kept in memory as sorted arrays without duplicates instead of hash sets.
+ * The arrays contain the dense representation of the positions (see {@link Board#compress(long)}), i.e. positions of
+ * boards with at most 40 holes (e.g. English board) need 5 bytes instead of 8 bytes.
+ * Consecutive positions are collected in buffers per chunk of positions, the buffers are sorted and duplicates are removed.
+ * Lookups are binary searches and the resulting files are sorted, i.e. the output is deterministic.
+ * A winning position is a position from which the end position can be reached i.e. which is part of a solution.
+ */
+@Component
+public class SortingStrategy implements WinningPositionsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(SortingStrategy.class);
+    public static final String NAME = "winningPositionsSorted";
+    // number of positions which are expanded in one task
+    private static final int CHUNK_SIZE = 1 << 12;
+    private final SerializationService serializationService;
+
+    @Autowired
+    public SortingStrategy(SerializationService serializationService) {
+        this.serializationService = serializationService;
+    }
+
+    @Override
+    public List<Path> solve(Board board, Long startPosition) {
+        List<PackedLongArray> reachablePositions = assembleReachablePositions(board, startPosition);
+        Instant start = Instant.now();
+        removeNonWinningPositions(board, reachablePositions);
+        logger.info("Time non winning positions: {}\n", Duration.between(start, Instant.now()).toMillis());
+        List<Path> txtFilePaths = new ArrayList<>();
+        for (int pegs = reachablePositions.size() - 1; pegs > 0; pegs--) {
+            if (reachablePositions.get(pegs).length() > 0) {
+                txtFilePaths.add(serializationService.storePositionsInTxtFile(board, reachablePositions.get(pegs).stream().map(board::expand), pegs));
+            }
+        }
+        return txtFilePaths;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Assemble all reachable positions starting with startPosition.
+     *
+     * @param board         the board where the positions live
+     * @param startPosition start finding positions with this start position
+     * @return sorted reachable positions (dense representation) indexed by number of pegs
+     */
+    private List<PackedLongArray> assembleReachablePositions(Board board, Long startPosition) {
+        int numberOfStartPins = board.getNumberOfPegs(startPosition);
+        List<PackedLongArray> reachablePositions = new ArrayList<>();
+        for (int pegs = 0; pegs < numberOfStartPins; pegs++) {
+            reachablePositions.add(new PackedLongArray(new long[0]));
+        }
+        // only canonical forms are stored, i.e. no symmetric duplicates
+        reachablePositions.add(new PackedLongArray(new long[]{board.compress(board.canonicalize(startPosition))}));
+
+        long totalTime = 0L;
+        for (int numberOfRemainingPieces = numberOfStartPins - 1; (numberOfRemainingPieces > 0); numberOfRemainingPieces--) {
+            Instant start = Instant.now();
+            PackedLongArray previousPositions = reachablePositions.get(numberOfRemainingPieces + 1);
+            int numberOfChunks = (previousPositions.length() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            List<long[]> consecutivePositionsPerChunk = IntStream.range(0, numberOfChunks).parallel()
+                    .mapToObj(chunk -> expandChunk(board, previousPositions, chunk * CHUNK_SIZE,
+                            Math.min(previousPositions.length(), (chunk + 1) * CHUNK_SIZE)))
+                    .collect(Collectors.toList());
+            long[] consecutivePositions = SortedLongArrays.mergeUnique(consecutivePositionsPerChunk);
+            PackedLongArray packedPositions = compress(board, consecutivePositions);
+            reachablePositions.set(numberOfRemainingPieces, packedPositions);
+
+            totalTime += Duration.between(start, Instant.now()).toMillis();
+            logger.info("{}: {} reachable positions in {} ms ({} bytes/position)", numberOfRemainingPieces, packedPositions.length(),
+                    Duration.between(start, Instant.now()).toMillis(), packedPositions.getMemoryUsage() / Math.max(1, packedPositions.length()));
+        }
+        logger.info("TOTAL TIME REACHABLE POSITIONS: {} ms", totalTime);
+        return reachablePositions;
+    }
+
+    /**
+     * Collect the canonical consecutive positions of positions[from, to) in one buffer, sort it and remove duplicates.
+     */
+    private long[] expandChunk(Board board, PackedLongArray positions, int from, int to) {
+        long[] symmetricPositions = new long[board.getNumberOfSymmetries()];
+        PositionBuffer consecutivePositions = new PositionBuffer((to - from) * board.getMoveMasks().length);
+        for (int i = from; i < to; i++) {
+            long position = board.expand(positions.get(i));
+            board.getSymmetricPositions(position, symmetricPositions);
+            board.forEachConsecutiveCanonicalPosition(position, symmetricPositions, consecutivePositions);
+        }
+        return SortedLongArrays.sortUnique(consecutivePositions.getPositions(), consecutivePositions.size());
+    }
+
+    /**
+     * remove all positions which are not part of a solution.
+     *
+     * @param board              the board, the positions live on
+     * @param reachablePositions sorted reachable positions (dense representation) indexed by number of pegs
+     */
+    private void removeNonWinningPositions(Board board, List<PackedLongArray> reachablePositions) {
+        // one buffer for the symmetric positions of the current position per thread
+        ThreadLocal<long[]> symmetricPositionsBuffer = ThreadLocal.withInitial(() -> new long[board.getNumberOfSymmetries()]);
+        for (int pegs = 2; pegs < reachablePositions.size(); pegs++) {
+            Instant start = Instant.now();
+            PackedLongArray positions = reachablePositions.get(pegs);
+            PackedLongArray followingPositions = reachablePositions.get(pegs - 1);
+            // the stream is ordered, i.e. the winning positions are sorted as well
+            long[] winningPositions = positions.stream().parallel()
+                    .filter(denseBits -> {
+                        long position = board.expand(denseBits);
+                        long[] symmetricPositions = symmetricPositionsBuffer.get();
+                        board.getSymmetricPositions(position, symmetricPositions);
+                        return board.hasConsecutiveCanonicalPosition(position, symmetricPositions,
+                                consecutivePosition -> followingPositions.contains(board.compress(consecutivePosition)));
+                    })
+                    .toArray();
+            logger.info("{}: {} winning positions in {} ms (all: {})", pegs, winningPositions.length, (Duration.between(start, Instant.now()).toMillis()), positions.length());
+            reachablePositions.set(pegs, new PackedLongArray(winningPositions));
+        }
+    }
+
+    /**
+     * Replace the positions by their dense representation (same order) and pack them.
+     */
+    private PackedLongArray compress(Board board, long[] positions) {
+        Arrays.parallelSetAll(positions, i -> board.compress(positions[i]));
+        return new PackedLongArray(positions);
+    }
+}
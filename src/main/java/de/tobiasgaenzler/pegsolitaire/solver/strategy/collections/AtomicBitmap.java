@@ -0,0 +1,89 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A fixed size bitmap which can be modified concurrently (atomic operations on the long words).
+ */
+public class AtomicBitmap {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long size;
+    private final long[] words;
+
+    /**
+     * @param size number of bits
+     */
+    public AtomicBitmap(long size) {
+        this.size = size;
+        words = new long[Math.toIntExact((size + Long.SIZE - 1) >>> 6)];
+    }
+
+    /**
+     * @param index index of the bit
+     * @return true if the bit was not set before
+     */
+    public boolean set(long index) {
+        long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseOr(words, (int) (index >>> 6), bit) & bit) == 0L;
+    }
+
+    /**
+     * @param index index of the bit
+     * @return true if the bit was set before
+     */
+    public boolean clear(long index) {
+        long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseAnd(words, (int) (index >>> 6), ~bit) & bit) != 0L;
+    }
+
+    public boolean get(long index) {
+        return (words[(int) (index >>> 6)] & (1L << index)) != 0L;
+    }
+
+    /**
+     * @return number of bits set
+     */
+    public long cardinality() {
+        return Arrays.stream(words).parallel().map(Long::bitCount).sum();
+    }
+
+    /**
+     * @return number of bits
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Return a stream of the indices of all bits set (ascending).
+     * The stream is sequential, use {@code stream().parallel()} for parallel iteration.
+     *
+     * @return stream of indices
+     */
+    public LongStream stream() {
+        return IntStream.range(0, words.length)
+                .filter(wordIndex -> words[wordIndex] != 0L)
+                .mapToObj(wordIndex -> {
+                    long word = words[wordIndex];
+                    long[] indices = new long[Long.bitCount(word)];
+                    for (int i = 0; i < indices.length; i++) {
+                        indices[i] = ((long) wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                    return indices;
+                })
+                .flatMapToLong(Arrays::stream);
+    }
+
+    /**
+     * @return number of bytes used by the bitmap
+     */
+    public long getMemoryUsage() {
+        return (long) words.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,80 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A concurrent hash set for primitive longs using open addressing (linear probing) with 8 bytes per slot
+ * (see {@link SegmentedLongHashSet}), the slots are stored in java arrays.
+ * {@link #contains(long)} does not lock at all, i.e. it is meant for sets which are not modified concurrently
+ * (e.g. the previous layer of positions).
+ */
+public class ConcurrentLongHashSet extends SegmentedLongHashSet {
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 30;
+    private static final SlotAllocator HEAP_SLOT_ALLOCATOR = new SlotAllocator() {
+        @Override
+        public Slots allocate(int capacity) {
+            return new HeapSlots(capacity);
+        }
+
+        @Override
+        public void free(Slots slots) {
+            // freed by the garbage collector
+        }
+    };
+
+    public ConcurrentLongHashSet() {
+        this(0L);
+    }
+
+    /**
+     * @param expectedSize number of values the set should hold without resizing
+     */
+    public ConcurrentLongHashSet(long expectedSize) {
+        super(HEAP_SLOT_ALLOCATOR, MAX_SEGMENT_CAPACITY, expectedSize);
+    }
+
+    /**
+     * Mix the bits of the value (positions differ only in a few bits), see "variant 13" of
+     * http://zimbry.blogspot.com/2011/09/better-bit-mixing-improving-on.html
+     */
+    public static long hash(long value) {
+        long hash = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static final class HeapSlots implements Slots {
+        private final long[] slots;
+
+        private HeapSlots(int capacity) {
+            slots = new long[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return slots.length;
+        }
+
+        @Override
+        public long get(int index) {
+            return slots[index];
+        }
+
+        @Override
+        public long getVolatile(int index) {
+            return (long) SLOTS.getVolatile(slots, index);
+        }
+
+        @Override
+        public long compareAndExchange(int index, long expectedValue, long newValue) {
+            return (long) SLOTS.compareAndExchange(slots, index, expectedValue, newValue);
+        }
+
+        @Override
+        public void set(int index, long value) {
+            slots[index] = value;
+        }
+    }
+}
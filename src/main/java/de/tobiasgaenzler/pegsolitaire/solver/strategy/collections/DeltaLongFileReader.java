@@ -0,0 +1,179 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Reader for files written by {@link DeltaLongFileWriter}. Positions can be read sequentially (one block is decoded
+ * at a time), as stream of independently decoded blocks (parallel) or looked up via the block index.
+ * Blocks are read with positional reads, i.e. {@link #readBlock(int)}, {@link #contains(long)} and {@link #stream()}
+ * can be used concurrently.
+ */
+public class DeltaLongFileReader implements PositionReader {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaLongFileReader.class);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long count;
+    private final int numberOfBlocks;
+    private final long indexOffset;
+    private final long[] firstPositions;
+    private final long[] blockOffsets;
+    // sequential reading: the current decoded block and the index of the next position in it
+    private long[] currentBlock = new long[0];
+    private int nextBlock = 0;
+    private int indexInBlock = 0;
+
+    public DeltaLongFileReader(Path path) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            ByteBuffer trailer = read(channel.size() - DeltaLongFileWriter.TRAILER_SIZE, DeltaLongFileWriter.TRAILER_SIZE);
+            count = trailer.getLong();
+            numberOfBlocks = trailer.getInt();
+            indexOffset = trailer.getLong();
+            if (trailer.getInt() != DeltaLongFileWriter.MAGIC) {
+                throw new IOException("Not a delta encoded position file");
+            }
+            ByteBuffer index = read(indexOffset, numberOfBlocks * 2 * Long.BYTES);
+            firstPositions = new long[numberOfBlocks];
+            blockOffsets = new long[numberOfBlocks];
+            for (int block = 0; block < numberOfBlocks; block++) {
+                firstPositions[block] = index.getLong();
+                blockOffsets[block] = index.getLong();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not open file '{}' for reading:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return number of positions in the file
+     */
+    public long size() {
+        return count;
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (indexInBlock < currentBlock.length) {
+            return true;
+        }
+        if (nextBlock < numberOfBlocks) {
+            currentBlock = readBlock(nextBlock++);
+            indexInBlock = 0;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long peek() {
+        hasNext();
+        return currentBlock[indexInBlock];
+    }
+
+    @Override
+    public long next() {
+        hasNext();
+        return currentBlock[indexInBlock++];
+    }
+
+    /**
+     * Seek via the block index and look up the position in its block.
+     *
+     * @param position the position to look up
+     * @return true if the file contains the position
+     */
+    public boolean contains(long position) {
+        int block = Arrays.binarySearch(firstPositions, position);
+        if (block >= 0) {
+            return true;
+        }
+        // block which starts before the position
+        block = -block - 2;
+        return block >= 0 && Arrays.binarySearch(readBlock(block), position) >= 0;
+    }
+
+    /**
+     * Return a stream of all positions (ascending). Blocks are decoded independently.
+     * The stream is sequential, use {@code stream().parallel()} for parallel iteration.
+     *
+     * @return stream of positions
+     */
+    public LongStream stream() {
+        return IntStream.range(0, numberOfBlocks)
+                .mapToObj(this::readBlock)
+                .flatMapToLong(Arrays::stream);
+    }
+
+    /**
+     * @param block index of the block
+     * @return the decoded positions of the block
+     */
+    public long[] readBlock(int block) {
+        long end = block + 1 < numberOfBlocks ? blockOffsets[block + 1] : indexOffset;
+        ByteBuffer encoded;
+        try {
+            encoded = read(blockOffsets[block], Math.toIntExact(end - blockOffsets[block]));
+        } catch (UncheckedIOException e) {
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        int size = (int) Math.min(DeltaLongFileWriter.BLOCK_SIZE, count - (long) block * DeltaLongFileWriter.BLOCK_SIZE);
+        long[] positions = new long[size];
+        long position = encoded.getLong();
+        positions[0] = position;
+        for (int i = 1; i < size; i++) {
+            long delta = 0L;
+            int shift = 0;
+            byte value;
+            do {
+                value = encoded.get();
+                delta |= (value & 0x7FL) << shift;
+                shift += 7;
+            } while (value < 0);
+            position += delta;
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Could not close file {}:  {}", path, e.getMessage());
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,127 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sequential writer for compressed files of ascending positions. Sorted positions differ by small deltas, i.e. the
+ * deltas need only a few bytes when encoded as varint (7 bits per byte, the highest bit marks that more bytes follow).
+ * File layout:
+ * <ul>
+ *     <li>Blocks of {@link #BLOCK_SIZE} positions: the first position (8 bytes) followed by the varint encoded deltas
+ *     to the previous position.</li>
+ *     <li>Block index: first position and file offset (8 bytes each) of every block, which allows to seek to the
+ *     block containing a position (binary search) and to decode blocks independently of each other.</li>
+ *     <li>Trailer: number of positions, number of blocks, offset of the index and a magic number.</li>
+ * </ul>
+ */
+public class DeltaLongFileWriter implements PositionWriter {
+    private static final Logger logger = LoggerFactory.getLogger(DeltaLongFileWriter.class);
+    static final int BLOCK_SIZE = 1 << 10;
+    static final int MAGIC = 0x44454C54; // "DELT"
+    // count (long) + number of blocks (int) + index offset (long) + magic (int)
+    static final int TRAILER_SIZE = 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // maximum size of a varint encoded long
+    private static final int MAX_VARINT_SIZE = 10;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long offset = 0L;
+    private long count = 0L;
+    private long previous;
+    private int numberOfBlocks = 0;
+    private long[] firstPositions = new long[16];
+    private long[] blockOffsets = new long[16];
+
+    public DeltaLongFileWriter(Path path) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Could not open file '{}' for writing:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param position the position, has to be greater than the positions written before
+     */
+    @Override
+    public void write(long position) {
+        // also checked for the first position of a block, the block index is searched binary
+        if (count > 0L && position <= previous) {
+            throw new IllegalArgumentException("Positions have to be ascending: " + position + " after " + previous);
+        }
+        if (buffer.remaining() < MAX_VARINT_SIZE) {
+            flush();
+        }
+        if (count % BLOCK_SIZE == 0L) {
+            if (numberOfBlocks == firstPositions.length) {
+                firstPositions = Arrays.copyOf(firstPositions, 2 * numberOfBlocks);
+                blockOffsets = Arrays.copyOf(blockOffsets, 2 * numberOfBlocks);
+            }
+            firstPositions[numberOfBlocks] = position;
+            blockOffsets[numberOfBlocks] = offset + buffer.position();
+            numberOfBlocks++;
+            buffer.putLong(position);
+        } else {
+            // the difference of ascending longs fits into an unsigned long
+            long delta = position - previous;
+            while ((delta & ~0x7FL) != 0L) {
+                buffer.put((byte) (delta | 0x80L));
+                delta >>>= 7;
+            }
+            buffer.put((byte) delta);
+        }
+        previous = position;
+        count++;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        try (channel) {
+            long indexOffset = offset + buffer.position();
+            for (int block = 0; block < numberOfBlocks; block++) {
+                if (buffer.remaining() < 2 * Long.BYTES) {
+                    flush();
+                }
+                buffer.putLong(firstPositions[block]).putLong(blockOffsets[block]);
+            }
+            if (buffer.remaining() < TRAILER_SIZE) {
+                flush();
+            }
+            buffer.putLong(count).putInt(numberOfBlocks).putLong(indexOffset).putInt(MAGIC);
+            flush();
+        } catch (IOException e) {
+            logger.error("Could not close file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.error("Could not write to file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,145 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sort (and remove duplicates from) more positions than fit into memory.
+ * Sorted runs (which fit into memory) are written to disk and merged into one sorted file without duplicates
+ * (k-way merge, several rounds if there are many runs).
+ * Runs and the merged file are written in the given format ({@link PositionFileFormat}).
+ * The sorter is not thread safe.
+ */
+public class ExternalSorter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ExternalSorter.class);
+    // maximum number of runs which are merged at once (i.e. number of open files)
+    private static final int MAX_MERGE_FAN_IN = 128;
+
+    private final Path directory;
+    private final PositionFileFormat format;
+    private List<Path> runs = new ArrayList<>();
+    private int numberOfRuns = 0;
+
+    /**
+     * @param parentDirectory the runs are stored in a temporary directory in this directory
+     */
+    public ExternalSorter(Path parentDirectory) {
+        this(parentDirectory, PositionFileFormat.RAW);
+    }
+
+    /**
+     * @param parentDirectory the runs are stored in a temporary directory in this directory
+     * @param format          format of the runs and of the merged files
+     */
+    public ExternalSorter(Path parentDirectory, PositionFileFormat format) {
+        this.format = format;
+        try {
+            directory = Files.createTempDirectory(parentDirectory, "runs");
+        } catch (IOException e) {
+            logger.error("Could not create directory for runs in '{}':  {}", parentDirectory, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write a sorted run to disk.
+     *
+     * @param sortedPositions sorted positions without duplicates
+     */
+    public void addRun(long[] sortedPositions) {
+        if (sortedPositions.length == 0) {
+            return;
+        }
+        Path run = nextRunPath();
+        try (PositionWriter writer = format.openWriter(run)) {
+            writer.write(sortedPositions);
+        }
+        runs.add(run);
+    }
+
+    /**
+     * Merge all runs added so far into the target file and delete the runs.
+     *
+     * @param target file for the sorted positions without duplicates
+     * @return number of positions written to the target file
+     */
+    public long mergeTo(Path target) {
+        while (runs.size() > MAX_MERGE_FAN_IN) {
+            List<Path> mergedRuns = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += MAX_MERGE_FAN_IN) {
+                Path mergedRun = nextRunPath();
+                merge(runs.subList(i, Math.min(runs.size(), i + MAX_MERGE_FAN_IN)), mergedRun);
+                mergedRuns.add(mergedRun);
+            }
+            runs = mergedRuns;
+        }
+        long count = merge(runs, target);
+        runs = new ArrayList<>();
+        return count;
+    }
+
+    /**
+     * Delete remaining runs and the directory of the runs.
+     */
+    @Override
+    public void close() {
+        runs.forEach(this::delete);
+        runs.clear();
+        delete(directory);
+    }
+
+    private long merge(List<Path> sortedRuns, Path target) {
+        logger.debug("Merging {} runs into {}", sortedRuns.size(), target);
+        PriorityQueue<PositionReader> readers = new PriorityQueue<>(Math.max(1, sortedRuns.size()), Comparator.comparingLong(PositionReader::peek));
+        try (PositionWriter writer = format.openWriter(target)) {
+            for (Path run : sortedRuns) {
+                PositionReader reader = format.openReader(run);
+                if (reader.hasNext()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            boolean first = true;
+            long last = 0L;
+            while (!readers.isEmpty()) {
+                PositionReader reader = readers.poll();
+                long position = reader.next();
+                if (first || position != last) {
+                    writer.write(position);
+                    last = position;
+                    first = false;
+                }
+                if (reader.hasNext()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            return writer.getCount();
+        } finally {
+            readers.forEach(PositionReader::close);
+            sortedRuns.forEach(this::delete);
+        }
+    }
+
+    private Path nextRunPath() {
+        return directory.resolve("run_" + numberOfRuns++ + ".bin");
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.error("Could not delete file {}:  {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed size, lock free and lossy hash table for positions from which no solution can be reached (transposition
+ * table of a depth first search).
+ * <ul>
+ *     <li>The table is split into buckets of {@link #BUCKET_SIZE} slots (8 bytes per slot), a position can only be
+ *     stored in the bucket selected by its hash.</li>
+ *     <li>If the bucket is full the position with the fewest pegs is replaced (its search tree is the smallest,
+ *     i.e. it is the cheapest to search again).</li>
+ *     <li>Slots are written with compare and set. If another thread modified the slot in the meantime the position
+ *     is not stored, i.e. positions may get lost but a position which was not stored is never found.</li>
+ *     <li>Zero is used to mark empty slots and is never stored.</li>
+ * </ul>
+ */
+public class FailedPositionTable {
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = 0L;
+    public static final int BUCKET_SIZE = 4;
+
+    private final long[] slots;
+    private final int bucketMask;
+
+    /**
+     * @param memoryBudget maximum number of bytes used by the table (rounded down to a power of two number of buckets,
+     *                     at least one bucket, at most 8 GB)
+     */
+    public FailedPositionTable(long memoryBudget) {
+        long numberOfBuckets = Math.max(1L, memoryBudget / (BUCKET_SIZE * Long.BYTES));
+        numberOfBuckets = Math.min(Long.highestOneBit(numberOfBuckets), 1L << 28);
+        slots = new long[(int) numberOfBuckets * BUCKET_SIZE];
+        bucketMask = (int) numberOfBuckets - 1;
+    }
+
+    /**
+     * Store a position from which no solution can be reached (might replace another position).
+     */
+    public void add(long position) {
+        if (position == EMPTY) {
+            return;
+        }
+        int bucket = getBucket(position);
+        int replacementIndex = bucket;
+        long replacement = (long) SLOTS.getOpaque(slots, bucket);
+        for (int index = bucket; index < bucket + BUCKET_SIZE; index++) {
+            long current = (long) SLOTS.getOpaque(slots, index);
+            if (current == position) {
+                return;
+            }
+            if (current == EMPTY) {
+                if (SLOTS.compareAndSet(slots, index, EMPTY, position)) {
+                    return;
+                }
+                current = (long) SLOTS.getOpaque(slots, index);
+                if (current == position) {
+                    return;
+                }
+            }
+            if (Long.bitCount(current) < Long.bitCount(replacement)) {
+                replacementIndex = index;
+                replacement = current;
+            }
+        }
+        SLOTS.compareAndSet(slots, replacementIndex, replacement, position);
+    }
+
+    /**
+     * @return true if the position has been stored and was not replaced yet
+     */
+    public boolean contains(long position) {
+        if (position == EMPTY) {
+            return false;
+        }
+        int bucket = getBucket(position);
+        for (int index = bucket; index < bucket + BUCKET_SIZE; index++) {
+            if ((long) SLOTS.getOpaque(slots, index) == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getMemoryUsage() {
+        return (long) slots.length * Long.BYTES;
+    }
+
+    private int getBucket(long position) {
+        return ((int) ConcurrentLongHashSet.hash(position) & bucketMask) * BUCKET_SIZE;
+    }
+}
@@ -0,0 +1,109 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader for binary files of positions (longs) with one position look ahead.
+ */
+public class LongFileReader implements PositionReader {
+    private static final Logger logger = LoggerFactory.getLogger(LongFileReader.class);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final DataInputStream inputStream;
+    private long next;
+    private boolean hasNext;
+
+    public LongFileReader(Path path) {
+        this.path = path;
+        try {
+            inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile()), BUFFER_SIZE));
+        } catch (IOException e) {
+            logger.error("Could not open file '{}' for reading:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        advance();
+    }
+
+    /**
+     * Read all positions of a file into memory.
+     *
+     * @param path path to the binary positions file
+     * @return the positions (same order as in the file)
+     */
+    public static long[] readAll(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] positions = new long[Math.toIntExact(channel.size() / Long.BYTES)];
+            if (positions.length > 0) {
+                // one bulk copy from the mapped file
+                channel.map(FileChannel.MapMode.READ_ONLY, 0L, (long) positions.length * Long.BYTES).asLongBuffer().get(positions);
+            }
+            return positions;
+        } catch (IOException e) {
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return the next position without consuming it
+     */
+    @Override
+    public long peek() {
+        return next;
+    }
+
+    @Override
+    public long next() {
+        long current = next;
+        advance();
+        return current;
+    }
+
+    /**
+     * Read the next positions into the buffer.
+     *
+     * @param buffer the buffer to fill
+     * @return number of positions read (less than the buffer size only at the end of the file)
+     */
+    @Override
+    public int read(long[] buffer) {
+        int size = 0;
+        while (size < buffer.length && hasNext) {
+            buffer[size++] = next();
+        }
+        return size;
+    }
+
+    @Override
+    public void close() {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.error("Could not close file {}:  {}", path, e.getMessage());
+        }
+    }
+
+    private void advance() {
+        try { // inputStream.available() is too slow
+            next = inputStream.readLong();
+            hasNext = true;
+        } catch (EOFException e) {
+            hasNext = false;
+        } catch (IOException e) {
+            logger.error("Could not read from file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential writer for binary files of positions (longs, big endian).
+ * Positions are collected in a direct buffer, arrays of positions are copied with bulk puts.
+ */
+public class LongFileWriter implements PositionWriter {
+    private static final Logger logger = LoggerFactory.getLogger(LongFileWriter.class);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final LongBuffer longBuffer = buffer.asLongBuffer();
+    private long count = 0L;
+
+    public LongFileWriter(Path path) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Could not open file '{}' for writing:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void write(long position) {
+        if (!longBuffer.hasRemaining()) {
+            flush();
+        }
+        longBuffer.put(position);
+        count++;
+    }
+
+    /**
+     * @param positions buffer of positions
+     * @param length    number of positions of the buffer to write
+     */
+    @Override
+    public void write(long[] positions, int length) {
+        for (int offset = 0; offset < length; ) {
+            if (!longBuffer.hasRemaining()) {
+                flush();
+            }
+            int size = Math.min(length - offset, longBuffer.remaining());
+            longBuffer.put(positions, offset, size);
+            offset += size;
+        }
+        count += length;
+    }
+
+    /**
+     * @return number of positions written so far
+     */
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        try (channel) {
+            flush();
+        } catch (IOException e) {
+            logger.error("Could not close file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void flush() {
+        buffer.clear().limit(longBuffer.position() * Long.BYTES);
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            logger.error("Could not write to file {}:  {}", path, e.getMessage());
+            throw new RuntimeException(e);
+        }
+        longBuffer.clear();
+    }
+}
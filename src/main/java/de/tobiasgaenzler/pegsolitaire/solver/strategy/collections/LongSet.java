@@ -0,0 +1,54 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.util.stream.LongStream;
+
+/**
+ * A set of primitive longs (positions) which avoids the memory overhead of boxed {@code Long} objects.
+ * Implementations are thread safe for concurrent {@link #add(long)} calls.
+ * Sets should be closed when they are not needed any longer (some implementations hold native memory).
+ */
+public interface LongSet extends AutoCloseable {
+
+    /**
+     * Add a value to the set.
+     *
+     * @param value the value to add
+     * @return true if the value was not yet contained in the set
+     */
+    boolean add(long value);
+
+    /**
+     * @param value the value to look up
+     * @return true if the value is contained in the set
+     */
+    boolean contains(long value);
+
+    /**
+     * @return the number of values in the set
+     */
+    long size();
+
+    default boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Return a stream of all values in the set (no particular order).
+     * The stream is sequential, use {@code stream().parallel()} for parallel iteration.
+     *
+     * @return stream of all values
+     */
+    LongStream stream();
+
+    /**
+     * @return the number of bytes used to store the values
+     */
+    long getMemoryUsage();
+
+    /**
+     * Release the resources of the set, nothing to do for sets on the heap.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,59 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Factory for the sets used to store the layers of positions (positions with the same number of pegs).
+ * The storage can be chosen via command line e.g. --layerStorage="offHeap" --nativeMemoryBudget="64GB".
+ * <ul>
+ *     <li>"heap" (default): {@link ConcurrentLongHashSet}</li>
+ *     <li>"offHeap": {@link OffHeapLongHashSet}, all sets share the native memory budget</li>
+ * </ul>
+ */
+@Component
+public class LongSetFactory {
+    public static final String HEAP = "heap";
+    public static final String OFF_HEAP = "offHeap";
+
+    private final String layerStorage;
+    private final NativeMemoryBudget nativeMemoryBudget;
+
+    /**
+     * Store layers on the heap.
+     */
+    public LongSetFactory() {
+        this(HEAP, Long.MAX_VALUE);
+    }
+
+    @Autowired
+    public LongSetFactory(@Value("${layerStorage:" + HEAP + "}") String layerStorage,
+                          @Value("${nativeMemoryBudget:16GB}") String nativeMemoryBudget) {
+        this(layerStorage, DataSize.parse(nativeMemoryBudget).toBytes());
+    }
+
+    public LongSetFactory(String layerStorage, long nativeMemoryBudget) {
+        if (!HEAP.equals(layerStorage) && !OFF_HEAP.equals(layerStorage)) {
+            throw new IllegalArgumentException("Unknown layer storage: " + layerStorage + ". Available layer storages " + HEAP + "," + OFF_HEAP);
+        }
+        this.layerStorage = layerStorage;
+        this.nativeMemoryBudget = new NativeMemoryBudget(nativeMemoryBudget);
+    }
+
+    /**
+     * @return a new empty set
+     */
+    public LongSet create() {
+        return OFF_HEAP.equals(layerStorage) ? new OffHeapLongHashSet(nativeMemoryBudget) : new ConcurrentLongHashSet();
+    }
+
+    public String getLayerStorage() {
+        return layerStorage;
+    }
+
+    public NativeMemoryBudget getNativeMemoryBudget() {
+        return nativeMemoryBudget;
+    }
+}
@@ -0,0 +1,54 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upper bound for the native (off heap) memory used by {@link OffHeapLongHashSet}s.
+ * Memory has to be reserved before it is allocated and released when it is not used any longer.
+ */
+public class NativeMemoryBudget {
+    private final long maxBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /**
+     * @param maxBytes maximum number of bytes which can be reserved at the same time
+     */
+    public NativeMemoryBudget(long maxBytes) {
+        if (maxBytes <= 0L) {
+            throw new IllegalArgumentException("Native memory budget must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Reserve memory.
+     *
+     * @param bytes number of bytes to reserve
+     * @throws IllegalStateException if the budget would be exceeded
+     */
+    public void reserve(long bytes) {
+        long reserved;
+        do {
+            reserved = reservedBytes.get();
+            if (reserved + bytes > maxBytes) {
+                throw new IllegalStateException(String.format("Native memory budget of %d bytes exceeded (reserved: %d bytes, requested: %d bytes)",
+                        maxBytes, reserved, bytes));
+            }
+        } while (!reservedBytes.compareAndSet(reserved, reserved + bytes));
+    }
+
+    /**
+     * @param bytes number of previously reserved bytes which are not used any longer
+     */
+    public void release(long bytes) {
+        reservedBytes.addAndGet(-bytes);
+    }
+
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,85 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Same as {@link ConcurrentLongHashSet} but the slots are stored in direct byte buffers (off heap), i.e. the positions
+ * are not scanned by the garbage collector and the heap can be kept small.
+ * All allocations are reserved in a {@link NativeMemoryBudget} which is shared by all sets, an
+ * {@link IllegalStateException} is thrown when a set would exceed the budget.
+ * The memory of a set is returned to the budget on {@link #close()}. Direct buffers are freed by the garbage collector,
+ * therefore <i>-XX:MaxDirectMemorySize</i> should be a bit larger than the budget.
+ */
+public class OffHeapLongHashSet extends SegmentedLongHashSet {
+    private static final VarHandle SLOTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // a direct byte buffer holds at most Integer.MAX_VALUE bytes
+    private static final int MAX_SEGMENT_CAPACITY = 1 << 27;
+
+    public OffHeapLongHashSet(NativeMemoryBudget budget) {
+        this(budget, 0L);
+    }
+
+    /**
+     * @param budget       the budget used for all allocations of this set
+     * @param expectedSize number of values the set should hold without resizing
+     */
+    public OffHeapLongHashSet(NativeMemoryBudget budget, long expectedSize) {
+        super(new OffHeapSlotAllocator(budget), MAX_SEGMENT_CAPACITY, expectedSize);
+    }
+
+    private static final class OffHeapSlotAllocator implements SlotAllocator {
+        private final NativeMemoryBudget budget;
+
+        private OffHeapSlotAllocator(NativeMemoryBudget budget) {
+            this.budget = budget;
+        }
+
+        @Override
+        public Slots allocate(int capacity) {
+            budget.reserve((long) capacity * Long.BYTES);
+            return new OffHeapSlots(capacity);
+        }
+
+        @Override
+        public void free(Slots slots) {
+            budget.release((long) slots.capacity() * Long.BYTES);
+        }
+    }
+
+    private static final class OffHeapSlots implements Slots {
+        private final ByteBuffer slots;
+
+        private OffHeapSlots(int capacity) {
+            // direct buffers are zeroed, i.e. all slots are empty
+            slots = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public int capacity() {
+            return slots.capacity() / Long.BYTES;
+        }
+
+        @Override
+        public long get(int index) {
+            return (long) SLOTS.get(slots, index * Long.BYTES);
+        }
+
+        @Override
+        public long getVolatile(int index) {
+            return (long) SLOTS.getVolatile(slots, index * Long.BYTES);
+        }
+
+        @Override
+        public long compareAndExchange(int index, long expectedValue, long newValue) {
+            return (long) SLOTS.compareAndExchange(slots, index * Long.BYTES, expectedValue, newValue);
+        }
+
+        @Override
+        public void set(int index, long value) {
+            SLOTS.set(slots, index * Long.BYTES, value);
+        }
+    }
+}
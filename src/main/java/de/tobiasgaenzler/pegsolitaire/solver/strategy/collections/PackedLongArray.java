@@ -0,0 +1,95 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Immutable array of non negative values with at most 40 bits (e.g. dense positions, see
+ * {@link de.tobiasgaenzler.pegsolitaire.board.Board#compress(long)}), which are split into an int array (low 32 bits)
+ * and a byte array (high 8 bits), i.e. a value needs 5 bytes instead of 8 bytes.
+ * Arrays with larger values are stored as long array.
+ */
+public class PackedLongArray {
+    public static final int MAX_PACKED_BITS = Integer.SIZE + Byte.SIZE;
+    private static final long LOW_MASK = 0xFFFF_FFFFL;
+
+    private final int length;
+    private final int[] low;
+    private final byte[] high;
+    private final long[] values;
+
+    /**
+     * @param values the values to store (non negative)
+     */
+    public PackedLongArray(long[] values) {
+        length = values.length;
+        long maximum = 0L;
+        for (long value : values) {
+            maximum |= value;
+        }
+        if (maximum >>> MAX_PACKED_BITS == 0L) {
+            low = new int[length];
+            high = new byte[length];
+            for (int i = 0; i < length; i++) {
+                low[i] = (int) values[i];
+                high[i] = (byte) (values[i] >>> Integer.SIZE);
+            }
+            this.values = null;
+        } else {
+            low = null;
+            high = null;
+            this.values = values.clone();
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public long get(int index) {
+        if (values != null) {
+            return values[index];
+        }
+        return ((high[index] & 0xFFL) << Integer.SIZE) | (low[index] & LOW_MASK);
+    }
+
+    /**
+     * Binary search, i.e. the values have to be sorted.
+     *
+     * @param value the value to look up
+     * @return true if the array contains the value
+     */
+    public boolean contains(long value) {
+        int from = 0;
+        int to = length - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            long middleValue = get(middle);
+            if (middleValue < value) {
+                from = middle + 1;
+            } else if (middleValue > value) {
+                to = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return a stream of all values (same order).
+     * The stream is sequential, use {@code stream().parallel()} for parallel iteration.
+     *
+     * @return stream of values
+     */
+    public LongStream stream() {
+        return IntStream.range(0, length).mapToLong(this::get);
+    }
+
+    /**
+     * @return number of bytes used by the array
+     */
+    public long getMemoryUsage() {
+        return values != null ? (long) length * Long.BYTES : (long) length * (Integer.BYTES + Byte.BYTES);
+    }
+}
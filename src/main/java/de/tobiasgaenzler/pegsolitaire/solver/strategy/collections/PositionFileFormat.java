@@ -0,0 +1,69 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Formats of binary position files.
+ */
+public enum PositionFileFormat {
+    /**
+     * 8 bytes per position (big endian), any order.
+     */
+    RAW("raw") {
+        @Override
+        public PositionReader openReader(Path path) {
+            return new LongFileReader(path);
+        }
+
+        @Override
+        public PositionWriter openWriter(Path path) {
+            return new LongFileWriter(path);
+        }
+    },
+    /**
+     * Ascending positions, delta and varint encoded in blocks with a block index (see {@link DeltaLongFileWriter}).
+     */
+    DELTA("delta") {
+        @Override
+        public PositionReader openReader(Path path) {
+            return new DeltaLongFileReader(path);
+        }
+
+        @Override
+        public PositionWriter openWriter(Path path) {
+            return new DeltaLongFileWriter(path);
+        }
+    };
+
+    private final String name;
+
+    PositionFileFormat(String name) {
+        this.name = name;
+    }
+
+    public abstract PositionReader openReader(Path path);
+
+    /**
+     * @param path the file to write
+     * @return a writer, positions have to be written in ascending order unless the format is {@link #RAW}
+     */
+    public abstract PositionWriter openWriter(Path path);
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name name of the format (command line)
+     * @return the format with the given name
+     */
+    public static PositionFileFormat fromName(String name) {
+        return Arrays.stream(values())
+                .filter(format -> format.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown position file format: " + name + ". Available position file formats "
+                        + Arrays.stream(values()).map(PositionFileFormat::getName).collect(Collectors.joining(","))));
+    }
+}
@@ -0,0 +1,33 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+/**
+ * Sequential reader for files of positions with one position look ahead.
+ */
+public interface PositionReader extends AutoCloseable {
+
+    boolean hasNext();
+
+    /**
+     * @return the next position without consuming it
+     */
+    long peek();
+
+    long next();
+
+    /**
+     * Read the next positions into the buffer.
+     *
+     * @param buffer the buffer to fill
+     * @return number of positions read (less than the buffer size only at the end of the file)
+     */
+    default int read(long[] buffer) {
+        int size = 0;
+        while (size < buffer.length && hasNext()) {
+            buffer[size++] = next();
+        }
+        return size;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,31 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+/**
+ * Sequential writer for files of positions.
+ */
+public interface PositionWriter extends AutoCloseable {
+
+    void write(long position);
+
+    default void write(long[] positions) {
+        write(positions, positions.length);
+    }
+
+    /**
+     * @param positions buffer of positions
+     * @param length    number of positions of the buffer to write
+     */
+    default void write(long[] positions, int length) {
+        for (int i = 0; i < length; i++) {
+            write(positions[i]);
+        }
+    }
+
+    /**
+     * @return number of positions written so far
+     */
+    long getCount();
+
+    @Override
+    void close();
+}
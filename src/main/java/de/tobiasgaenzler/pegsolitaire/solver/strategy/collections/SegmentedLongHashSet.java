@@ -0,0 +1,263 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * A concurrent hash set for primitive longs using open addressing (linear probing) with 8 bytes per slot.
+ * The storage of the slots is provided by a {@link SlotAllocator} (e.g. java arrays or direct byte buffers).
+ * <ul>
+ *     <li>The set is split into segments (by the upper bits of the hash) which are resized independently.</li>
+ *     <li>Values are inserted lock free via compare and set on the slots. A segment is only locked exclusively
+ *     while it is resized or closed (inserting threads share the lock).</li>
+ *     <li>Zero is used to mark empty slots and is stored separately.</li>
+ * </ul>
+ * {@link #contains(long)} does not lock at all, i.e. it is meant for sets which are not modified concurrently
+ * (e.g. the previous layer of positions).
+ */
+class SegmentedLongHashSet implements LongSet {
+    private static final long EMPTY = 0L;
+    private static final int SEGMENT_BITS = 8;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final AtomicBoolean containsZero = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final SlotAllocator slotAllocator;
+    private final int maxSegmentCapacity;
+
+    /**
+     * @param slotAllocator      allocates the slots of the segments
+     * @param maxSegmentCapacity maximum number of slots of a segment (power of two)
+     * @param expectedSize       number of values the set should hold without resizing
+     */
+    SegmentedLongHashSet(SlotAllocator slotAllocator, int maxSegmentCapacity, long expectedSize) {
+        this.slotAllocator = slotAllocator;
+        this.maxSegmentCapacity = maxSegmentCapacity;
+        long segmentSize = expectedSize / segments.length + 1;
+        // load factor is at most 3/4
+        int capacity = (int) Math.min(maxSegmentCapacity, Math.max(MIN_SEGMENT_CAPACITY, Long.highestOneBit(segmentSize * 4 / 3) << 1));
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment(slotAllocator.allocate(capacity));
+            }
+        } catch (RuntimeException e) {
+            // e.g. the native memory budget is exceeded
+            for (int i = 0; i < segments.length && segments[i] != null; i++) {
+                slotAllocator.free(segments[i].slots);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            checkNotClosed();
+            return containsZero.compareAndSet(false, true);
+        }
+        long hash = ConcurrentLongHashSet.hash(value);
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))].add(value, hash);
+    }
+
+    @Override
+    public boolean contains(long value) {
+        checkNotClosed();
+        if (value == EMPTY) {
+            return containsZero.get();
+        }
+        long hash = ConcurrentLongHashSet.hash(value);
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))].contains(value, hash);
+    }
+
+    @Override
+    public long size() {
+        long size = containsZero.get() ? 1L : 0L;
+        for (Segment segment : segments) {
+            size += segment.size.get();
+        }
+        return size;
+    }
+
+    @Override
+    public LongStream stream() {
+        LongStream values = IntStream.range(0, segments.length)
+                .mapToObj(segment -> segments[segment].slots)
+                .flatMapToLong(slots -> IntStream.range(0, slots.capacity())
+                        .mapToLong(slots::get)
+                        .filter(value -> value != EMPTY));
+        return containsZero.get() ? LongStream.concat(LongStream.of(EMPTY), values) : values;
+    }
+
+    @Override
+    public long getMemoryUsage() {
+        long bytes = 0L;
+        for (Segment segment : segments) {
+            bytes += (long) segment.slots.capacity() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Free the slots of all segments. The set must not be used afterwards, i.e. {@link #add(long)} and
+     * {@link #contains(long)} throw an {@link IllegalStateException}. Waits for insertions which are in progress.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            for (Segment segment : segments) {
+                long stamp = segment.lock.writeLock();
+                try {
+                    slotAllocator.free(segment.slots);
+                    segment.slots = slotAllocator.allocate(0);
+                } finally {
+                    segment.lock.unlockWrite(stamp);
+                }
+            }
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed.get()) {
+            throw new IllegalStateException("Set is closed");
+        }
+    }
+
+    /**
+     * The slots of a segment, the capacity is a power of two (or zero if the set is closed).
+     */
+    interface Slots {
+        int capacity();
+
+        long get(int index);
+
+        long getVolatile(int index);
+
+        /**
+         * @return the value of the slot before the operation (the new value is set if it equals the expected value)
+         */
+        long compareAndExchange(int index, long expectedValue, long newValue);
+
+        void set(int index, long value);
+    }
+
+    /**
+     * Allocates the slots of the segments, all slots of new slots are empty (zero).
+     */
+    interface SlotAllocator {
+        Slots allocate(int capacity);
+
+        /**
+         * Called when the slots are not used any longer.
+         */
+        void free(Slots slots);
+    }
+
+    private final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile Slots slots;
+
+        private Segment(Slots slots) {
+            this.slots = slots;
+        }
+
+        /**
+         * The value is counted before a slot is claimed (and uncounted if it is already contained), i.e. concurrent
+         * insertions can not fill the table beyond the load factor and there is always an empty slot which ends
+         * the probing. The segment is resized first if the value does not fit.
+         */
+        private boolean add(long value, long hash) {
+            while (true) {
+                long stamp = lock.readLock();
+                try {
+                    checkNotClosed();
+                    if (!isFull(size.incrementAndGet())) {
+                        boolean added = insert(value, hash);
+                        if (!added) {
+                            size.decrementAndGet();
+                        }
+                        return added;
+                    }
+                    size.decrementAndGet();
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+                resize();
+            }
+        }
+
+        /**
+         * @return false if the value is already contained
+         */
+        private boolean insert(long value, long hash) {
+            Slots table = slots;
+            int mask = table.capacity() - 1;
+            for (int index = (int) hash & mask; ; index = (index + 1) & mask) {
+                long current = table.getVolatile(index);
+                if (current == EMPTY) {
+                    current = table.compareAndExchange(index, EMPTY, value);
+                    if (current == EMPTY) {
+                        return true;
+                    }
+                }
+                if (current == value) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean contains(long value, long hash) {
+            Slots table = slots;
+            int mask = table.capacity() - 1;
+            for (int index = (int) hash & mask; ; index = (index + 1) & mask) {
+                long current = table.get(index);
+                if (current == value) {
+                    return true;
+                } else if (current == EMPTY) {
+                    return false;
+                }
+            }
+        }
+
+        private boolean isFull(int size) {
+            return size > (slots.capacity() >>> 2) * 3;
+        }
+
+        private void resize() {
+            long stamp = lock.writeLock();
+            try {
+                // another thread might already have resized this segment (no insertions are pending, i.e. the size
+                // is the number of values)
+                if (!isFull(size.get() + 1)) {
+                    return;
+                }
+                checkNotClosed();
+                Slots oldTable = slots;
+                int capacity = Math.max(MIN_SEGMENT_CAPACITY, oldTable.capacity() << 1);
+                if (capacity > maxSegmentCapacity) {
+                    throw new IllegalStateException("Maximum capacity of set exceeded: " + size());
+                }
+                Slots table = slotAllocator.allocate(capacity);
+                int mask = capacity - 1;
+                for (int oldIndex = 0; oldIndex < oldTable.capacity(); oldIndex++) {
+                    long value = oldTable.get(oldIndex);
+                    if (value != EMPTY) {
+                        int index = (int) ConcurrentLongHashSet.hash(value) & mask;
+                        while (table.get(index) != EMPTY) {
+                            index = (index + 1) & mask;
+                        }
+                        table.set(index, value);
+                    }
+                }
+                slots = table;
+                slotAllocator.free(oldTable);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
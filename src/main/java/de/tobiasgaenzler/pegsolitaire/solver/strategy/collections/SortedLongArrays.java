@@ -0,0 +1,101 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helper methods for sets of positions which are represented as sorted long arrays without duplicates.
+ * A sorted array needs 8 bytes per position and the iteration order is deterministic.
+ */
+public final class SortedLongArrays {
+    // below this size sorting in the calling thread is faster than Arrays.parallelSort
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private SortedLongArrays() {
+    }
+
+    /**
+     * Sort the first length values and remove duplicates.
+     *
+     * @param values buffer of values (modified)
+     * @param length number of valid values in the buffer
+     * @return new array with the sorted, distinct values
+     */
+    public static long[] sortUnique(long[] values, int length) {
+        if (length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values, 0, length);
+        } else {
+            Arrays.sort(values, 0, length);
+        }
+        return Arrays.copyOf(values, unique(values, length));
+    }
+
+    /**
+     * Concatenate sorted arrays and remove duplicates.
+     *
+     * @param sortedArrays sorted arrays (may contain the same values)
+     * @return new array with the sorted, distinct values of all arrays
+     */
+    public static long[] mergeUnique(List<long[]> sortedArrays) {
+        int length = 0;
+        for (long[] sortedArray : sortedArrays) {
+            length += sortedArray.length;
+        }
+        long[] values = new long[length];
+        int offset = 0;
+        for (long[] sortedArray : sortedArrays) {
+            System.arraycopy(sortedArray, 0, values, offset, sortedArray.length);
+            offset += sortedArray.length;
+        }
+        return sortUnique(values, length);
+    }
+
+    /**
+     * @param sortedValues sorted array
+     * @param value        the value to look up
+     * @return true if the array contains the value
+     */
+    public static boolean contains(long[] sortedValues, long value) {
+        return Arrays.binarySearch(sortedValues, value) >= 0;
+    }
+
+    /**
+     * @param sortedValues      sorted array without duplicates
+     * @param otherSortedValues sorted array without duplicates
+     * @return new sorted array with the values contained in both arrays
+     */
+    public static long[] intersect(long[] sortedValues, long[] otherSortedValues) {
+        long[] intersection = new long[Math.min(sortedValues.length, otherSortedValues.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < sortedValues.length && j < otherSortedValues.length; ) {
+            if (sortedValues[i] < otherSortedValues[j]) {
+                i++;
+            } else if (sortedValues[i] > otherSortedValues[j]) {
+                j++;
+            } else {
+                intersection[size++] = sortedValues[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(intersection, size);
+    }
+
+    /**
+     * Move distinct values of a sorted buffer to the front.
+     *
+     * @return number of distinct values
+     */
+    private static int unique(long[] sortedValues, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int distinct = 1;
+        for (int i = 1; i < length; i++) {
+            if (sortedValues[i] != sortedValues[distinct - 1]) {
+                sortedValues[distinct++] = sortedValues[i];
+            }
+        }
+        return distinct;
+    }
+}
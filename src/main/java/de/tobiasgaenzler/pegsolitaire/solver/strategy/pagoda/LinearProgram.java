@@ -0,0 +1,137 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda;
+
+/**
+ * A small dense simplex solver for linear programs of the form: maximize c·x subject to A·x &lt;= b and x &gt;= 0
+ * with b &gt;= 0, i.e. the origin is a feasible solution and no first phase is needed.
+ * Bland's rule (smallest index) is used for the entering and the leaving variable which prevents cycling on
+ * degenerate programs. Only meant for small programs (e.g. one constraint per hole of a board).
+ */
+class LinearProgram {
+    private static final double EPSILON = 1e-9;
+
+    private final int numberOfConstraints;
+    private final int numberOfVariables;
+    // constraints (one row per constraint, one column per variable and slack variable, right hand side last)
+    private final double[][] tableau;
+    // objective row (reduced costs, value of the objective last)
+    private final double[] objective;
+    // index of the basic variable per constraint
+    private final int[] basis;
+
+    /**
+     * @param a constraint matrix (one row per constraint)
+     * @param b right hand side of the constraints (non negative)
+     * @param c objective coefficients (maximized)
+     */
+    LinearProgram(double[][] a, double[] b, double[] c) {
+        numberOfConstraints = b.length;
+        numberOfVariables = c.length;
+        int columns = numberOfVariables + numberOfConstraints + 1;
+        tableau = new double[numberOfConstraints][columns];
+        objective = new double[columns];
+        basis = new int[numberOfConstraints];
+        for (int row = 0; row < numberOfConstraints; row++) {
+            if (b[row] < 0.0) {
+                throw new IllegalArgumentException("Right hand side must not be negative: " + b[row]);
+            }
+            System.arraycopy(a[row], 0, tableau[row], 0, numberOfVariables);
+            tableau[row][numberOfVariables + row] = 1.0;
+            tableau[row][columns - 1] = b[row];
+            // the slack variables are the initial basis
+            basis[row] = numberOfVariables + row;
+        }
+        for (int column = 0; column < numberOfVariables; column++) {
+            objective[column] = -c[column];
+        }
+    }
+
+    /**
+     * Solve the program (pivot until all reduced costs are non negative).
+     *
+     * @return the maximum of the objective
+     * @throws IllegalStateException if the objective is unbounded
+     */
+    double solve() {
+        for (int column = getEnteringColumn(); column >= 0; column = getEnteringColumn()) {
+            int row = getLeavingRow(column);
+            if (row < 0) {
+                throw new IllegalStateException("Linear program is unbounded");
+            }
+            pivot(row, column);
+        }
+        return objective[objective.length - 1];
+    }
+
+    /**
+     * @return the values of the variables of an optimal solution (call {@link #solve()} first)
+     */
+    double[] getSolution() {
+        double[] solution = new double[numberOfVariables];
+        for (int row = 0; row < numberOfConstraints; row++) {
+            if (basis[row] < numberOfVariables) {
+                solution[basis[row]] = tableau[row][objective.length - 1];
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * @return the values of the dual variables (one per constraint) of an optimal solution, i.e. the optimal solution
+     * of the dual program: minimize b·y subject to Aᵀ·y &gt;= c and y &gt;= 0 (call {@link #solve()} first)
+     */
+    double[] getDualSolution() {
+        double[] dualSolution = new double[numberOfConstraints];
+        System.arraycopy(objective, numberOfVariables, dualSolution, 0, numberOfConstraints);
+        return dualSolution;
+    }
+
+    private int getEnteringColumn() {
+        for (int column = 0; column < objective.length - 1; column++) {
+            if (objective[column] < -EPSILON) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    private int getLeavingRow(int column) {
+        int leavingRow = -1;
+        double minimumRatio = Double.POSITIVE_INFINITY;
+        for (int row = 0; row < numberOfConstraints; row++) {
+            double coefficient = tableau[row][column];
+            if (coefficient > EPSILON) {
+                double ratio = tableau[row][objective.length - 1] / coefficient;
+                if (ratio < minimumRatio - EPSILON || (ratio < minimumRatio + EPSILON && basis[row] < basis[leavingRow])) {
+                    minimumRatio = ratio;
+                    leavingRow = row;
+                }
+            }
+        }
+        return leavingRow;
+    }
+
+    private void pivot(int pivotRow, int pivotColumn) {
+        double[] row = tableau[pivotRow];
+        double pivot = row[pivotColumn];
+        for (int column = 0; column < row.length; column++) {
+            row[column] /= pivot;
+        }
+        for (int other = 0; other < numberOfConstraints; other++) {
+            if (other != pivotRow) {
+                eliminate(tableau[other], row, pivotColumn);
+            }
+        }
+        eliminate(objective, row, pivotColumn);
+        basis[pivotRow] = pivotColumn;
+    }
+
+    private static void eliminate(double[] target, double[] pivotRow, int pivotColumn) {
+        double factor = target[pivotColumn];
+        if (factor != 0.0) {
+            for (int column = 0; column < target.length; column++) {
+                target[column] -= factor * pivotRow[column];
+            }
+            target[pivotColumn] = 0.0;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda;
+
+/**
+ * A pagoda function assigns a weight to every hole of a board such that no move increases the sum of the weights of
+ * the pegs (pagoda value): for every move from a over b to c the weight of c is at most the sum of the weights of a
+ * and b. Hence a position with a pagoda value below the pagoda value of a target position can not reach the target.
+ * The weights are integers, the value of a position is the sum of eight table lookups (one table per byte of the
+ * position).
+ */
+public class PagodaFunction {
+    private static final int BYTES = Long.BYTES;
+
+    private final long[] weights;
+    // pagoda values of all values of a byte of the position (index: byte * 256 + value)
+    private final long[] byteValues = new long[BYTES * 256];
+
+    /**
+     * @param weights weight per bit of the position (64 weights)
+     */
+    public PagodaFunction(long[] weights) {
+        this.weights = weights.clone();
+        for (int index = 0; index < BYTES; index++) {
+            for (int value = 1; value < 256; value++) {
+                int lowestBit = Integer.numberOfTrailingZeros(value);
+                byteValues[index * 256 + value] = byteValues[index * 256 + (value & (value - 1))] + weights[index * 8 + lowestBit];
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the weights of the pegs of the position
+     */
+    public long getValue(long position) {
+        long value = 0L;
+        for (int index = 0; index < BYTES && position != 0L; index++, position >>>= 8) {
+            value += byteValues[index * 256 + (int) (position & 0xFF)];
+        }
+        return value;
+    }
+
+    /**
+     * @return the weight per bit of the position
+     */
+    public long[] getWeights() {
+        return weights.clone();
+    }
+}
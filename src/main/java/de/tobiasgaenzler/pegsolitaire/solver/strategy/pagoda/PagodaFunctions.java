@@ -0,0 +1,218 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+/**
+ * Pagoda functions of a board for a set of target positions, used to reject positions which can not reach any of the
+ * targets: a position is rejected if, for every target, the pagoda value of the position is below the pagoda value
+ * of the target for at least one pagoda function of the target.
+ * <p>
+ * The pagoda functions are found by a linear program per target T and cost vector c:
+ * minimize c·w subject to w(T) &gt;= 1, w(a) + w(b) - w(c) &gt;= 0 for every move (a over b to c) and w &gt;= -2.
+ * The dual of this program is solved (its origin is feasible, see {@link LinearProgram}), the weights are the dual
+ * values. Different cost vectors lead to different pagoda functions: one function minimizes the sum of all weights,
+ * the others penalize the weight of one hole each (i.e. pegs on this hole are worth as little as possible).
+ * The weights are converted to integers (common denominator) and checked again, i.e. rounding errors can not
+ * reject a position which can reach the target. Duplicate functions are removed and the functions are cached per
+ * board and targets.
+ * <p>
+ * Boards without end position (any position with one peg is an end position) have no targets: every position with
+ * a peg on hole h has a pagoda value of at least w(h) = w({h}), i.e. no position could be rejected.
+ */
+public class PagodaFunctions {
+    private static final Logger logger = LoggerFactory.getLogger(PagodaFunctions.class);
+    // lower bound of the weights (relative to the pagoda value of the target), negative weights lead to stronger functions
+    private static final double LOWER_BOUND = 2.0;
+    private static final int MAX_DENOMINATOR = 64;
+    private static final double ROUNDING_TOLERANCE = 1e-6;
+    private static final Map<String, PagodaFunctions> cache = new ConcurrentHashMap<>();
+
+    private final long[] targets;
+    // pagoda functions per target
+    private final PagodaFunction[][] functions;
+    // pagoda values of the targets per target and function
+    private final long[][] targetValues;
+
+    private PagodaFunctions(Board board, long[] targets) {
+        this.targets = targets;
+        this.functions = new PagodaFunction[targets.length][];
+        this.targetValues = new long[targets.length][];
+        for (int target = 0; target < targets.length; target++) {
+            functions[target] = findPagodaFunctions(board, targets[target]);
+            targetValues[target] = new long[functions[target].length];
+            for (int function = 0; function < functions[target].length; function++) {
+                targetValues[target][function] = functions[target][function].getValue(targets[target]);
+            }
+        }
+    }
+
+    /**
+     * @return the pagoda functions for the end position of the board (no functions if the board has no end position)
+     */
+    public static PagodaFunctions forEndPosition(Board board) {
+        Long endPosition = board.getEndPosition();
+        return forTargets(board, endPosition == null ? new long[0] : new long[]{endPosition});
+    }
+
+    /**
+     * Canonical positions represent all their symmetric positions, i.e. a canonical position must only be able to
+     * reach one of the symmetric positions of the end position.
+     *
+     * @return the pagoda functions for all symmetric positions of the end position of the board (no functions if the
+     * board has no end position)
+     */
+    public static PagodaFunctions forCanonicalPositions(Board board) {
+        Long endPosition = board.getEndPosition();
+        return forTargets(board, endPosition == null ? new long[0] : LongStream.of(board.getSymmetricPositions(endPosition)).distinct().sorted().toArray());
+    }
+
+    private static PagodaFunctions forTargets(Board board, long[] targets) {
+        return cache.computeIfAbsent(board.getName() + Arrays.toString(targets), key -> {
+            PagodaFunctions pagodaFunctions = new PagodaFunctions(board, targets);
+            logger.info("{} pagoda functions for {} target positions of {}", pagodaFunctions.size(), targets.length, board.getName());
+            return pagodaFunctions;
+        });
+    }
+
+    /**
+     * @return false if the position can not reach any target position (true if there are no targets)
+     */
+    public boolean canReachTarget(long position) {
+        if (targets.length == 0) {
+            return true;
+        }
+        for (int target = 0; target < targets.length; target++) {
+            if (canReachTarget(position, target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the total number of pagoda functions
+     */
+    public int size() {
+        return Arrays.stream(functions).mapToInt(targetFunctions -> targetFunctions.length).sum();
+    }
+
+    /**
+     * @return the pagoda functions of the target position
+     */
+    public List<PagodaFunction> getFunctions(long target) {
+        for (int index = 0; index < targets.length; index++) {
+            if (targets[index] == target) {
+                return List.of(functions[index]);
+            }
+        }
+        return List.of();
+    }
+
+    private boolean canReachTarget(long position, int target) {
+        PagodaFunction[] targetFunctions = functions[target];
+        for (int function = 0; function < targetFunctions.length; function++) {
+            if (targetFunctions[function].getValue(position) < targetValues[target][function]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static PagodaFunction[] findPagodaFunctions(Board board, long target) {
+        int[] holes = LongStream.range(0, Long.SIZE).filter(bit -> (board.getLayout() & (1L << bit)) != 0L).mapToInt(bit -> (int) bit).toArray();
+        long[] masks = board.getMoveMasks();
+        long[] checks = board.getMoveChecks();
+        // dual program (weights shifted by the lower bound, u = w + LOWER_BOUND >= 0):
+        // one variable for the target constraint and one per move, one constraint per hole
+        double[][] a = new double[holes.length][1 + masks.length];
+        for (int hole = 0; hole < holes.length; hole++) {
+            long bit = 1L << holes[hole];
+            a[hole][0] = (target & bit) != 0L ? 1.0 : 0.0;
+            for (int move = 0; move < masks.length; move++) {
+                if ((checks[move] & bit) != 0L) {
+                    a[hole][1 + move] = 1.0;
+                } else if ((masks[move] & bit) != 0L) {
+                    a[hole][1 + move] = -1.0;
+                }
+            }
+        }
+        // u(T) >= 1 + LOWER_BOUND * |T| and u(a) + u(b) - u(c) >= LOWER_BOUND
+        double[] objective = new double[1 + masks.length];
+        objective[0] = 1.0 + LOWER_BOUND * Long.bitCount(target);
+        Arrays.fill(objective, 1, objective.length, LOWER_BOUND);
+
+        List<PagodaFunction> pagodaFunctions = new ArrayList<>();
+        List<long[]> weights = new ArrayList<>();
+        for (int penalizedHole = -1; penalizedHole < holes.length; penalizedHole++) {
+            if (penalizedHole >= 0 && (target & (1L << holes[penalizedHole])) != 0L) {
+                continue;
+            }
+            double[] costs = new double[holes.length];
+            Arrays.fill(costs, 1.0);
+            if (penalizedHole >= 0) {
+                costs[penalizedHole] = holes.length;
+            }
+            LinearProgram program = new LinearProgram(a, costs, objective);
+            program.solve();
+            double[] dualSolution = program.getDualSolution();
+            double[] functionWeights = new double[Long.SIZE];
+            for (int hole = 0; hole < holes.length; hole++) {
+                functionWeights[holes[hole]] = dualSolution[hole] - LOWER_BOUND;
+            }
+            toIntegerWeights(functionWeights)
+                    .filter(integerWeights -> isPagodaFunction(integerWeights, masks, checks))
+                    .filter(integerWeights -> weights.stream().noneMatch(existing -> Arrays.equals(existing, integerWeights)))
+                    .ifPresent(integerWeights -> {
+                        weights.add(integerWeights);
+                        pagodaFunctions.add(new PagodaFunction(integerWeights));
+                    });
+        }
+        return pagodaFunctions.toArray(PagodaFunction[]::new);
+    }
+
+    /**
+     * The weights of a vertex of the program are rational numbers with small denominators, integer weights
+     * (multiplied with the common denominator) are compared without rounding errors.
+     *
+     * @return the weights multiplied with the smallest common denominator (empty if there is no small denominator)
+     */
+    private static Optional<long[]> toIntegerWeights(double[] weights) {
+        for (int denominator = 1; denominator <= MAX_DENOMINATOR; denominator++) {
+            long[] integerWeights = new long[weights.length];
+            boolean integral = true;
+            for (int bit = 0; bit < weights.length && integral; bit++) {
+                integerWeights[bit] = Math.round(weights[bit] * denominator);
+                integral = Math.abs(weights[bit] * denominator - integerWeights[bit]) < ROUNDING_TOLERANCE;
+            }
+            if (integral) {
+                return Optional.of(integerWeights);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return true if no move increases the pagoda value (weight of c is at most the sum of the weights of a and b)
+     */
+    private static boolean isPagodaFunction(long[] weights, long[] masks, long[] checks) {
+        for (int move = 0; move < masks.length; move++) {
+            int first = Long.numberOfTrailingZeros(checks[move]);
+            int second = Long.numberOfTrailingZeros(checks[move] & (checks[move] - 1));
+            int end = Long.numberOfTrailingZeros(masks[move] ^ checks[move]);
+            if (weights[end] > weights[first] + weights[second]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -6,7 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -82,4 +85,66 @@ public class EnglishBoardTest {
         Arrays.stream(expectedPositions).forEach(position -> logger.info(board.renderPosition(position)));
         assertThat(positions).isEqualTo(expectedPositions);
     }
+
+    @Test
+    public void testCanonicalizeReturnsMinimumOfSymmetricPositions() {
+        long position = 0B0010100_0001100_0111001_1001100_1101100_0011000_0001000L;
+        long expectedCanonicalPosition = Arrays.stream(board.getSymmetricPositions(position)).min().orElseThrow();
+        // all symmetric positions have the same canonical form
+        for (long symmetricPosition : board.getSymmetricPositions(position)) {
+            assertThat(board.canonicalize(symmetricPosition)).isEqualTo(expectedCanonicalPosition);
+        }
+        assertThat(board.canonicalize(board.getStartPosition()))
+                .isEqualTo(Arrays.stream(board.getSymmetricPositions(board.getStartPosition())).min().orElseThrow());
+    }
+
+    @Test
+    public void testConsecutiveCanonicalPositionsAreDerivedFromSymmetricPositions() {
+        long position = 0B0010100_0001100_0111001_1001100_1101100_0011000_0001000L;
+        long[] symmetricPositions = new long[board.getNumberOfSymmetries()];
+        board.getSymmetricPositions(position, symmetricPositions);
+        assertThat(symmetricPositions).isEqualTo(board.getSymmetricPositions(position));
+
+        List<Long> canonicalPositions = new ArrayList<>();
+        board.forEachConsecutiveCanonicalPosition(position, symmetricPositions, canonicalPositions::add);
+        Long[] expectedCanonicalPositions = Arrays.stream(board.getConsecutivePositions(position))
+                .map(board::canonicalize)
+                .boxed()
+                .toArray(Long[]::new);
+        assertThat(canonicalPositions).isNotEmpty().containsExactly(expectedCanonicalPositions);
+    }
+
+    @Test
+    public void testPrecedingPositionsAreTheInverseOfConsecutivePositions() {
+        Random random = new Random(42L);
+        for (int i = 0; i < 1000; i++) {
+            long position = random.nextLong() & board.getLayout();
+            for (long consecutivePosition : board.getConsecutivePositions(position)) {
+                assertThat(board.getPrecedingPositions(consecutivePosition)).contains(position);
+            }
+            for (long precedingPosition : board.getPrecedingPositions(position)) {
+                assertThat(board.getNumberOfPegs(precedingPosition)).isEqualTo(board.getNumberOfPegs(position) + 1);
+                assertThat(board.getConsecutivePositions(precedingPosition)).contains(position);
+            }
+        }
+        // only the center peg can be moved back from the end position
+        assertThat(board.getPrecedingPositions(board.getEndPosition())).hasSize(4);
+    }
+
+    @Test
+    public void testPrecedingCanonicalPositionsAreDerivedFromSymmetricPositions() {
+        long position = 0B0010100_0001100_0111001_1001100_1101100_0011000_0001000L;
+        long[] symmetricPositions = new long[board.getNumberOfSymmetries()];
+        board.getSymmetricPositions(position, symmetricPositions);
+
+        List<Long> canonicalPositions = new ArrayList<>();
+        board.forEachPrecedingCanonicalPosition(position, symmetricPositions, canonicalPositions::add);
+        Long[] expectedCanonicalPositions = Arrays.stream(board.getPrecedingPositions(position))
+                .map(board::canonicalize)
+                .boxed()
+                .toArray(Long[]::new);
+        assertThat(canonicalPositions).isNotEmpty().containsExactly(expectedCanonicalPositions);
+        assertThat(board.hasPrecedingCanonicalPosition(position, symmetricPositions, expectedCanonicalPositions[0]::equals)).isTrue();
+        assertThat(board.hasPrecedingCanonicalPosition(position, symmetricPositions, precedingPosition -> false)).isFalse();
+    }
 }
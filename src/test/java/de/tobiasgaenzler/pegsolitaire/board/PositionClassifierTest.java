@@ -0,0 +1,68 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PositionClassifierTest {
+
+    @Test
+    public void testEnglishBoardHasFourInvariants() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        assertThat(board.getPositionClassifier().getInvariantMasks()).hasSize(4);
+    }
+
+    @Test
+    public void testMovesDoNotChangeTheClass() {
+        Board board = new QuadraticBoardSizeSix(new BitManipulator(), new PositionRenderer());
+        PositionClassifier positionClassifier = board.getPositionClassifier();
+        long[] masks = board.getMoveMasks();
+        long[] checks = board.getMoveChecks();
+        Random random = new Random(42L);
+        for (int i = 0; i < 10_000; i++) {
+            long position = random.nextLong() & board.getLayout();
+            for (int move = 0; move < masks.length; move++) {
+                if ((position & masks[move]) == checks[move]) {
+                    assertThat(positionClassifier.getPositionClass(position ^ masks[move])).isEqualTo(positionClassifier.getPositionClass(position));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEndPositionOfSameClass() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        assertThat(board.hasEndPositionOfSameClass(board.getStartPosition())).isTrue();
+        // hole next to the center: the center can not be the last peg
+        assertThat(board.hasEndPositionOfSameClass(0B0011100_0011100_1111111_1101111_1111111_0011100_0011100L)).isFalse();
+        // the english board has five start positions with one hole which can reach the center
+        long layout = board.getLayout();
+        long count = 0;
+        for (long holes = layout; holes != 0L; holes &= holes - 1L) {
+            if (board.hasEndPositionOfSameClass(layout ^ Long.lowestOneBit(holes))) {
+                count++;
+            }
+        }
+        assertThat(count).isEqualTo(5);
+    }
+
+    @Test
+    public void testBoardWithoutEndPositionAcceptsOnePegClasses() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        // positions with one peg are end positions
+        assertThat(board.hasEndPositionOfSameClass(1L)).isTrue();
+        assertThat(board.hasEndPositionOfSameClass(board.getStartPosition())).isTrue();
+        // half of the start positions with one hole can not reach any position with one peg
+        long layout = board.getLayout();
+        long count = 0;
+        for (long holes = layout; holes != 0L; holes &= holes - 1L) {
+            if (board.hasEndPositionOfSameClass(layout ^ Long.lowestOneBit(holes))) {
+                count++;
+            }
+        }
+        assertThat(count).isEqualTo(8);
+    }
+}
@@ -0,0 +1,63 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PositionCompressorTest {
+
+    @Test
+    public void testEnglishBoardPositionsFitIn33Bits() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        PositionCompressor compressor = new PositionCompressor(board.getLayout());
+        assertThat(compressor.getNumberOfHoles()).isEqualTo(33);
+        assertThat(board.compress(board.getLayout())).isEqualTo((1L << 33) - 1L);
+        assertThat(board.expand((1L << 33) - 1L)).isEqualTo(board.getLayout());
+        assertThat(board.compress(0L)).isZero();
+    }
+
+    @Test
+    public void testCompressIsInverseOfExpandAndKeepsOrder() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        Random random = new Random(42L);
+        long previousPosition = -1L;
+        long previousDenseBits = -1L;
+        for (int i = 0; i < 10_000; i++) {
+            long position = random.nextLong() & board.getLayout();
+            long denseBits = board.compress(position);
+            assertThat(board.expand(denseBits)).isEqualTo(position);
+            assertThat(Long.bitCount(denseBits)).isEqualTo(Long.bitCount(position));
+            assertThat(denseBits).isEqualTo(gatherLayoutBits(board.getLayout(), position));
+            if (previousPosition >= 0L) {
+                assertThat(Long.compare(denseBits, previousDenseBits)).isEqualTo(Long.compare(position, previousPosition));
+            }
+            previousPosition = position;
+            previousDenseBits = denseBits;
+        }
+    }
+
+    @Test
+    public void testQuadraticBoardIsAlreadyDense() {
+        Board board = new QuadraticBoardSizeSix(new BitManipulator(), new PositionRenderer());
+        long position = board.getStartPosition();
+        assertThat(board.compress(position)).isEqualTo(position);
+        assertThat(board.expand(position)).isEqualTo(position);
+    }
+
+    private long gatherLayoutBits(long layout, long position) {
+        long denseBits = 0L;
+        int hole = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if ((layout & (1L << bit)) != 0L) {
+                if ((position & (1L << bit)) != 0L) {
+                    denseBits |= 1L << hole;
+                }
+                hole++;
+            }
+        }
+        return denseBits;
+    }
+}
@@ -0,0 +1,50 @@
+package de.tobiasgaenzler.pegsolitaire.board;
+
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PositionRankerTest {
+
+    @Test
+    public void testRanksOfQuadraticBoardSizeFourAreDenseAndUnique() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        PositionRanker ranker = new PositionRanker(board);
+        assertThat(ranker.getNumberOfHoles()).isEqualTo(16);
+        assertThat(ranker.getNumberOfPositions(8)).isEqualTo(12870L);
+
+        int[] numberOfRanks = new int[17];
+        boolean[][] ranked = new boolean[17][12870];
+        for (long position = 0L; position < (1L << 16); position++) {
+            int pegs = Long.bitCount(position);
+            long rank = ranker.rank(position);
+            assertThat(rank).isBetween(0L, ranker.getNumberOfPositions(pegs) - 1);
+            assertThat(ranked[pegs][(int) rank]).isFalse();
+            ranked[pegs][(int) rank] = true;
+            numberOfRanks[pegs]++;
+            assertThat(ranker.unrank(pegs, rank)).isEqualTo(position);
+        }
+        for (int pegs = 0; pegs <= 16; pegs++) {
+            assertThat((long) numberOfRanks[pegs]).isEqualTo(ranker.getNumberOfPositions(pegs));
+        }
+    }
+
+    @Test
+    public void testUnrankIsInverseOfRankForEnglishBoard() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        PositionRanker ranker = new PositionRanker(board);
+        assertThat(ranker.getNumberOfPositions(16)).isEqualTo(1166803110L);
+
+        Random random = new Random(42L);
+        for (int i = 0; i < 10_000; i++) {
+            long position = random.nextLong() & board.getLayout();
+            long rank = ranker.rank(position);
+            assertThat(rank).isLessThan(ranker.getNumberOfPositions(board.getNumberOfPegs(position)));
+            assertThat(ranker.unrank(board.getNumberOfPegs(position), rank)).isEqualTo(position);
+        }
+        assertThat(ranker.rank(board.getLayout())).isZero();
+    }
+}
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -70,4 +72,19 @@ public class QuadraticBoardSizeFourTest {
         Arrays.stream(expectedPositions).forEach(position -> logger.info(board.renderPosition(position)));
         assertThat(positions).isEqualTo(expectedPositions);
     }
+
+    @Test
+    public void testConsecutivePositionsAreIdenticalForArrayBufferAndConsumer() {
+        long position = board.getStartPosition();
+        long[] expectedPositions = board.getConsecutivePositions(position);
+
+        long[] buffer = new long[board.getMoveMasks().length];
+        int numberOfConsecutivePositions = board.getConsecutivePositions(position, buffer);
+        List<Long> consumedPositions = new ArrayList<>();
+        board.forEachConsecutivePosition(position, consumedPositions::add);
+
+        assertThat(expectedPositions).hasSize(4);
+        assertThat(Arrays.copyOf(buffer, numberOfConsecutivePositions)).isEqualTo(expectedPositions);
+        assertThat(consumedPositions).containsExactly(Arrays.stream(expectedPositions).boxed().toArray(Long[]::new));
+    }
 }
@@ -70,4 +70,16 @@ class QuadraticBoardSizeSixTest {
         Arrays.stream(expectedPositions).forEach(position -> logger.info(board.renderPosition(position)));
         assertThat(positions).isEqualTo(expectedPositions);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCanonicalizeReturnsMinimumOfSymmetricPositions() {
+        long position = 0B101010_001100_100110_001101_110111_111001L;
+        long expectedCanonicalPosition = Arrays.stream(board.getSymmetricPositions(position)).min().orElseThrow();
+        // all symmetric positions have the same canonical form
+        for (long symmetricPosition : board.getSymmetricPositions(position)) {
+            assertThat(board.canonicalize(symmetricPosition)).isEqualTo(expectedCanonicalPosition);
+        }
+        assertThat(board.canonicalize(board.getStartPosition()))
+                .isEqualTo(Arrays.stream(board.getSymmetricPositions(board.getStartPosition())).min().orElseThrow());
+    }
+}
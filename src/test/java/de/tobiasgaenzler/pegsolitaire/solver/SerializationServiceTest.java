@@ -1,16 +1,31 @@
 package de.tobiasgaenzler.pegsolitaire.solver;
 
 import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.board.EnglishBoard;
+import de.tobiasgaenzler.pegsolitaire.board.PositionRenderer;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.ConcurrentLongHashSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionFileFormat;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.PositionWriter;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +49,24 @@ class SerializationServiceTest {
         assertThat(numbersFromFile).isEqualTo(numbers);
     }
 
+    @Test
+    public void testReadingBinaryPositionsInParallelChunks() throws Exception {
+        Board board = spy(Board.class);
+        when(board.getName()).thenReturn("test-board");
+
+        // several chunks, the last one is not full
+        LongSet numbers = new ConcurrentLongHashSet();
+        LongStream.range(0, 200_003).map(i -> i * 0x9E3779B97F4A7C15L).forEach(numbers::add);
+        SerializationService serializationService = new SerializationService();
+
+        Path path = serializationService.storePositionsInBinaryFile(board, numbers, 2);
+        assertThat(Files.size(path)).isEqualTo(numbers.size() * Long.BYTES);
+
+        LongSet numbersFromFile = serializationService.readPositionsFromBinaryFile(path, new ConcurrentLongHashSet());
+        assertThat(numbersFromFile.size()).isEqualTo(numbers.size());
+        assertThat(numbers.stream().allMatch(numbersFromFile::contains)).isTrue();
+    }
+
     @Test
     public void testWritingAndReadingTxtPositions() {
         Board board = spy(Board.class);
@@ -66,4 +99,140 @@ class SerializationServiceTest {
         Set<Long> numbersFromFile = serializationService.readPositionsFromTxtFile(txtFilePath);
         assertThat(numbersFromFile).isEqualTo(numbers);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTxtFilesKeepOrderOfPositionsInParallelRanges() throws Exception {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        Random random = new Random(42L);
+        // several ranges of positions, including negative values and the extreme values
+        long[] positions = LongStream.concat(LongStream.of(0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 9L, 10L, -10L),
+                random.longs(200_000)).toArray();
+        String expected = Arrays.stream(positions).mapToObj(position -> position + SerializationService.POSITION_SEPARATOR)
+                .collect(Collectors.joining());
+        SerializationService serializationService = new SerializationService();
+
+        Path txtFilePath = serializationService.storePositionsInTxtFile(board, positions, 1);
+        assertThat(Files.readString(txtFilePath)).isEqualTo(expected);
+
+        Path binaryFilePath = serializationService.getBinaryPositionFilePath(board, 1);
+        try (PositionWriter writer = PositionFileFormat.RAW.openWriter(binaryFilePath)) {
+            writer.write(positions);
+        }
+        assertThat(Files.readString(serializationService.convertBinaryFileToTxtFile(binaryFilePath))).isEqualTo(expected);
+
+        assertThat(Files.readString(serializationService.storePositionsInTxtFile(board, Arrays.stream(positions), 1))).isEqualTo(expected);
+    }
+
+    @Test
+    public void testStreamingPositionsFromTxtFileInParallelChunks() throws Exception {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        Random random = new Random(42L);
+        // several chunks (positions cross the chunk borders)
+        long[] positions = LongStream.concat(LongStream.of(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L), random.longs(300_000)).toArray();
+        SerializationService serializationService = new SerializationService();
+        Path txtFilePath = serializationService.storePositionsInTxtFile(board, positions, 1);
+
+        try (LongStream positionsFromFile = serializationService.streamPositionsFromTxtFile(txtFilePath)) {
+            assertThat(positionsFromFile.toArray()).isEqualTo(positions);
+        }
+        try (LongStream positionsFromFile = serializationService.streamPositionsFromTxtFile(txtFilePath)) {
+            assertThat(positionsFromFile.parallel().toArray()).isEqualTo(positions);
+        }
+        LongSet positionsFromFile = serializationService.readPositionsFromTxtFile(txtFilePath, new ConcurrentLongHashSet());
+        assertThat(positionsFromFile.size()).isEqualTo(positions.length);
+        assertThat(Arrays.stream(positions).allMatch(positionsFromFile::contains)).isTrue();
+    }
+
+    @Test
+    public void testParsingTxtFileIgnoresWhitespaceAndRejectsInvalidPositions() throws Exception {
+        SerializationService serializationService = new SerializationService();
+        Path txtFilePath = Files.writeString(Path.of("test-board_1_positions.txt"), "12,-7, 3\n");
+        try (LongStream positionsFromFile = serializationService.streamPositionsFromTxtFile(txtFilePath)) {
+            assertThat(positionsFromFile.toArray()).containsExactly(12L, -7L, 3L);
+        }
+
+        Files.writeString(txtFilePath, "12,1x,3");
+        assertThatThrownBy(() -> serializationService.readPositionsFromTxtFile(txtFilePath)).isInstanceOf(NumberFormatException.class);
+        Files.writeString(txtFilePath, "9223372036854775808,");
+        assertThatThrownBy(() -> serializationService.readPositionsFromTxtFile(txtFilePath)).isInstanceOf(NumberFormatException.class);
+        Files.delete(txtFilePath);
+    }
+
+    @Test
+    public void testWritingAndReadingCompactPositions() throws Exception {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        Random random = new Random(42L);
+        LongSet positions = new ConcurrentLongHashSet();
+        for (int i = 0; i < 20_000; i++) {
+            positions.add(random.nextLong() & board.getLayout());
+        }
+        SerializationService serializationService = new SerializationService();
+
+        Path compactFilePath = serializationService.storePositionsInCompactFile(board, positions, 1);
+        assertThat(serializationService.getBytesPerCompactPosition(board)).isEqualTo(5);
+        PositionFileHeader header = serializationService.validateCompactFile(board, compactFilePath).orElseThrow();
+        assertThat(header.getCount()).isEqualTo(positions.size());
+        assertThat(header.getPegs()).isEqualTo(1);
+        assertThat(Files.size(compactFilePath)).isEqualTo(header.getSize() + positions.size() * 5);
+
+        LongSet positionsFromFile = serializationService.readPositionsFromCompactFile(board, compactFilePath, new ConcurrentLongHashSet());
+        assertThat(positionsFromFile.size()).isEqualTo(positions.size());
+        assertThat(positions.stream().allMatch(positionsFromFile::contains)).isTrue();
+        try (LongStream streamedPositions = serializationService.streamPositionsFromCompactFile(board, compactFilePath)) {
+            assertThat(streamedPositions.parallel().filter(positions::contains).count()).isEqualTo(positions.size());
+        }
+
+        Path txtFilePath = serializationService.convertCompactFileToTxtFile(board, compactFilePath);
+        assertThat(compactFilePath).doesNotExist();
+        assertThat(serializationService.readPositionsFromTxtFile(txtFilePath)).hasSize((int) positions.size());
+    }
+
+    @Test
+    public void testCorruptedCompactFileIsNotValid() throws Exception {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        LongSet positions = new ConcurrentLongHashSet();
+        LongStream.range(0, 1000).forEach(i -> positions.add(i << 4));
+        SerializationService serializationService = new SerializationService();
+        Path compactFilePath = serializationService.storePositionsInCompactFile(board, positions, 2, PositionFileHeader.WINNING);
+        assertThat(serializationService.validateCompactFile(board, compactFilePath).orElseThrow().hasFlag(PositionFileHeader.WINNING)).isTrue();
+
+        byte[] content = Files.readAllBytes(compactFilePath);
+        content[content.length - 1] ^= 1;
+        Files.write(compactFilePath, content);
+        assertThat(serializationService.validateCompactFile(board, compactFilePath)).isEmpty();
+
+        Files.write(compactFilePath, Arrays.copyOf(content, content.length - 5));
+        assertThat(serializationService.validateCompactFile(board, compactFilePath)).isEmpty();
+        Files.delete(compactFilePath);
+    }
+
+    @Test
+    public void testCompactFileWithCorruptedHeaderIsNotValid() throws Exception {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        LongSet positions = new ConcurrentLongHashSet();
+        LongStream.range(0, 1000).forEach(i -> positions.add(i << 4));
+        SerializationService serializationService = new SerializationService();
+        Path compactFilePath = serializationService.storePositionsInCompactFile(board, positions, 2, PositionFileHeader.WINNING);
+        byte[] content = Files.readAllBytes(compactFilePath);
+        // magic, version, flags, length of board name, board name, layout
+        int pegsOffset = Integer.BYTES + 3 * Short.BYTES + board.getName().length() + Long.BYTES;
+
+        // negative length of the board name
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putShort(8, (short) -1))).isEmpty();
+        // number of pegs, bytes per position and number of positions out of range
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putInt(pegsOffset, -1))).isEmpty();
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putInt(pegsOffset + Integer.BYTES, 0))).isEmpty();
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putInt(pegsOffset + Integer.BYTES, 9))).isEmpty();
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putLong(pegsOffset + 2 * Integer.BYTES, Long.MAX_VALUE / 2))).isEmpty();
+        assertThat(validateModifiedCopy(serializationService, board, compactFilePath, content, buffer -> buffer.putLong(pegsOffset + 2 * Integer.BYTES, -1L))).isEmpty();
+        Files.delete(compactFilePath);
+    }
+
+    private Optional<PositionFileHeader> validateModifiedCopy(SerializationService serializationService, Board board, Path path, byte[] content,
+                                                              Consumer<ByteBuffer> modification) throws Exception {
+        byte[] modifiedContent = content.clone();
+        modification.accept(ByteBuffer.wrap(modifiedContent));
+        Files.write(path, modifiedContent);
+        return serializationService.validateCompactFile(board, path);
+    }
+}
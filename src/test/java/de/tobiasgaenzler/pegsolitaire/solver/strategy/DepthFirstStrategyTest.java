@@ -789,4 +789,38 @@ public class DepthFirstStrategyTest {
 
         assertThat(solution.toString(board)).isEqualTo(expectedSolution);
     }
+
+    @Test
+    public void testFailedPositionsDoNotChangeTheSolution() {
+        Board board = new QuadraticBoardSizeSix(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B111111_111111_110111_111111_111111_111111L;
+
+        Solution solution = new DepthFirstStrategy().solve(board, startPosition);
+
+        assertThat(solution.getPositions()).isEqualTo(new DepthFirstStrategy(0L).solve(board, startPosition).getPositions());
+    }
+
+    @Test
+    public void testPositionsAreResetIfNoSolutionIsFound() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        // pegs in two corners and one move which leaves two pegs
+        long startPosition = 0B1000_0000_0000_0011L;
+
+        Solution solution = new DepthFirstStrategy().solve(board, startPosition);
+
+        assertThat(solution.getPositions()).containsExactly(startPosition, 0L, 0L);
+        assertThat(solution.isEndPositionValid(board)).isFalse();
+    }
+
+    @Test
+    public void testStartPositionOfOtherClassThanEndPosition() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        // hole next to the center: no solution which ends in the center (the search is skipped)
+        long startPosition = 0B0011100_0011100_1111111_1101111_1111111_0011100_0011100L;
+
+        Solution solution = new DepthFirstStrategy().solve(board, startPosition);
+
+        assertThat(solution.getPositions().get(0)).isEqualTo(startPosition);
+        assertThat(solution.isEndPositionValid(board)).isFalse();
+    }
 }
@@ -3,6 +3,7 @@ package de.tobiasgaenzler.pegsolitaire.solver.strategy;
 import de.tobiasgaenzler.pegsolitaire.board.*;
 import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
 import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSetFactory;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
@@ -11,6 +12,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class HighMemoryUsageStrategyTest {
 
@@ -47,6 +49,38 @@ public class HighMemoryUsageStrategyTest {
         assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
     }
 
+    @Test
+    public void testOffHeapLayerStorageForQuadraticBoardSizeFive() {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        LongSetFactory longSetFactory = new LongSetFactory(LongSetFactory.OFF_HEAP, 256L * 1024 * 1024);
+        WinningPositionsStrategy strategy = new HighMemoryUsageStrategy(serializationService, longSetFactory);
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        List<Path> winningPositionsPaths = strategy.solve(board, startPosition);
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> {
+                    Set<Long> positions = serializationService.readPositionsFromTxtFile(path);
+                    return positions.size();
+                }).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
+        // all layers are closed after the computation
+        assertThat(longSetFactory.getNativeMemoryBudget().getReservedBytes()).isZero();
+    }
+
+    @Test
+    public void testLayersAreClosedIfNativeMemoryBudgetIsExceeded() {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        LongSetFactory longSetFactory = new LongSetFactory(LongSetFactory.OFF_HEAP, 1024L * 1024);
+        WinningPositionsStrategy strategy = new HighMemoryUsageStrategy(serializationService, longSetFactory);
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        assertThatThrownBy(() -> strategy.solve(board, startPosition)).isInstanceOf(IllegalStateException.class);
+        assertThat(longSetFactory.getNativeMemoryBudget().getReservedBytes()).isZero();
+        // no layers of the failed computation are left
+        List<Path> winningPositionsPaths = strategy.solve(new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer()), 0B1110_1011_1111_1111L);
+        assertThat(winningPositionsPaths).hasSize(14);
+    }
+
     // this test takes a while (approximately 2 minutes on my computer).
     @Test
     public void testParallelStreamStrategyForEnglishBoard() {
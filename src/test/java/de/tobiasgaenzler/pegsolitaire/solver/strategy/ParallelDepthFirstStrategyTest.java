@@ -0,0 +1,87 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy;
+
+import de.tobiasgaenzler.pegsolitaire.board.*;
+import de.tobiasgaenzler.pegsolitaire.solver.Solution;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelDepthFirstStrategyTest {
+
+    @Test
+    public void testParallelDepthFirstStrategyForQuadraticBoardSizeFour() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B1110_1011_1111_1111L;
+
+        Solution solution = new ParallelDepthFirstStrategy().solve(board, startPosition);
+
+        assertValidSolution(board, startPosition, solution);
+    }
+
+    @Test
+    public void testParallelDepthFirstStrategyForQuadraticBoardSizeSix() {
+        Board board = new QuadraticBoardSizeSix(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B111111_111111_110111_111111_111111_111111L;
+
+        Solution solution = new ParallelDepthFirstStrategy().solve(board, startPosition);
+
+        assertValidSolution(board, startPosition, solution);
+    }
+
+    @Test
+    public void testParallelDepthFirstStrategyForEnglishBoard() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        long startPosition = board.getStartPosition();
+
+        Solution solution = new ParallelDepthFirstStrategy().solve(board, startPosition);
+
+        assertValidSolution(board, startPosition, solution);
+    }
+
+    @Test
+    public void testWithoutSplittingTheSameSolutionAsDepthFirstStrategyIsFound() {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+
+        Solution solution = new ParallelDepthFirstStrategy(0, 0L).solve(board, startPosition);
+
+        assertThat(solution.getPositions()).isEqualTo(new DepthFirstStrategy().solve(board, startPosition).getPositions());
+    }
+
+    @Test
+    public void testNoSolutionIsFoundForUnsolvablePosition() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        // two pegs which are not adjacent can not be reduced to one peg
+        long startPosition = 0B1000_0000_0000_0001L;
+
+        Solution solution = new ParallelDepthFirstStrategy().solve(board, startPosition);
+
+        assertThat(solution.getPositions()).containsExactly(startPosition, 0L);
+        assertThat(solution.isEndPositionValid(board)).isFalse();
+    }
+
+    @Test
+    public void testNoSolutionIsFoundForEmptyPosition() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+
+        Solution solution = new ParallelDepthFirstStrategy().solve(board, 0L);
+
+        assertThat(solution.getPositions()).containsExactly(0L);
+        assertThat(solution.isEndPositionValid(board)).isFalse();
+    }
+
+    private void assertValidSolution(Board board, long startPosition, Solution solution) {
+        List<Long> positions = solution.getPositions();
+        assertThat(positions).hasSize(board.getNumberOfPegs(startPosition));
+        assertThat(positions.get(0)).isEqualTo(startPosition);
+        for (int i = 1; i < positions.size(); i++) {
+            long[] consecutivePositions = board.getConsecutivePositions(positions.get(i - 1));
+            assertThat(Arrays.stream(consecutivePositions).boxed()).contains(positions.get(i));
+        }
+        assertThat(solution.isEndPositionValid(board)).isTrue();
+    }
+}
@@ -1,16 +1,27 @@
 package de.tobiasgaenzler.pegsolitaire.solver.strategy;
 
 import de.tobiasgaenzler.pegsolitaire.board.*;
+import de.tobiasgaenzler.pegsolitaire.solver.PositionFileHeader;
 import de.tobiasgaenzler.pegsolitaire.solver.SerializationService;
 import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.collections.LongSet;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class SerializingStrategyTest {
 
@@ -47,6 +58,198 @@ public class SerializingStrategyTest {
         assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
     }
 
+    @Test
+    public void testInterruptedRunIsResumedWithLastCompleteLayer() {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        // the run dies while the winning positions with 12 pegs are written
+        SerializationService failingSerializationService = new SerializationService() {
+            @Override
+            public Path storePositionsInCompactFile(Board board, LongSet positions, int numberOfRemainingPieces, int flags) {
+                if ((flags & PositionFileHeader.WINNING) != 0 && numberOfRemainingPieces == 12) {
+                    throw new IllegalStateException("interrupted");
+                }
+                return super.storePositionsInCompactFile(board, positions, numberOfRemainingPieces, flags);
+            }
+        };
+        assertThatThrownBy(() -> new SerializingStrategy(failingSerializationService).solve(board, startPosition))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        // only the missing winning positions are computed when the run is started again
+        List<Integer> writtenLayers = new ArrayList<>();
+        SerializationService serializationService = new SerializationService() {
+            @Override
+            public Path storePositionsInCompactFile(Board board, LongSet positions, int numberOfRemainingPieces, int flags) {
+                writtenLayers.add(numberOfRemainingPieces);
+                return super.storePositionsInCompactFile(board, positions, numberOfRemainingPieces, flags);
+            }
+        };
+        List<Path> winningPositionsPaths = new SerializingStrategy(serializationService).solve(board, startPosition);
+        assertThat(writtenLayers).containsExactlyElementsOf(IntStream.rangeClosed(12, 24).boxed().collect(Collectors.toList()));
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> {
+                    Set<Long> positions = serializationService.readPositionsFromTxtFile(path);
+                    return positions.size();
+                }).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
+    }
+
+    @Test
+    public void testLayerWithInvalidFileIsRemovedFromManifest() throws Exception {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        assertThatThrownBy(() -> new SerializingStrategy(failingSerializationService(12)).solve(board, startPosition))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+        Path manifestPath = Paths.get(board.getName() + "_positions.manifest");
+        assertThat(loadProperties(manifestPath)).containsKey("winning.11");
+
+        // the winning positions with 11 pegs are damaged and the next run dies while they are written again
+        Path positionsPath = new SerializationService().getCompactPositionFilePath(board, 11);
+        byte[] bytes = Files.readAllBytes(positionsPath);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(positionsPath, bytes);
+        assertThatThrownBy(() -> new SerializingStrategy(failingSerializationService(11)).solve(board, startPosition))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(loadProperties(manifestPath)).doesNotContainKey("winning.11").containsKey("winning.10");
+        SerializationService serializationService = new SerializationService();
+        List<Path> winningPositionsPaths = new SerializingStrategy(serializationService).solve(board, startPosition);
+        assertThat(serializationService.readPositionsFromTxtFile(winningPositionsPaths.get(11)).size()).isEqualTo(15558);
+    }
+
+    @Test
+    public void testLayerWithCorruptedHeaderIsComputedAgain() throws Exception {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        assertThatThrownBy(() -> new SerializingStrategy(failingSerializationService(12)).solve(board, startPosition))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        // negative length of the board name in the header of the winning positions with 11 pegs (after magic, version
+        // and flags)
+        Path positionsPath = new SerializationService().getCompactPositionFilePath(board, 11);
+        byte[] bytes = Files.readAllBytes(positionsPath);
+        ByteBuffer.wrap(bytes).putShort(Integer.BYTES + 2 * Short.BYTES, (short) -1);
+        Files.write(positionsPath, bytes);
+
+        SerializationService serializationService = new SerializationService();
+        List<Path> winningPositionsPaths = new SerializingStrategy(serializationService).solve(board, startPosition);
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
+    }
+
+    @Test
+    public void testLayerWithInvalidCountInManifestIsComputedAgain() throws Exception {
+        Board board = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        long startPosition = 0B11111_11111_11111_11011_11111L;
+        assertThatThrownBy(() -> new SerializingStrategy(failingSerializationService(12)).solve(board, startPosition))
+                .hasRootCauseInstanceOf(IllegalStateException.class);
+
+        Path manifestPath = Paths.get(board.getName() + "_positions.manifest");
+        Properties manifest = loadProperties(manifestPath);
+        manifest.setProperty("winning.11", "damaged");
+        try (OutputStream outputStream = Files.newOutputStream(manifestPath)) {
+            manifest.store(outputStream, null);
+        }
+
+        // the layer is not complete, i.e. the run is resumed with the reachable positions with 12 pegs
+        SerializationService serializationService = new SerializationService();
+        List<Path> winningPositionsPaths = new SerializingStrategy(serializationService).solve(board, startPosition);
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(1, 2, 6, 23, 95, 327, 966, 2422, 5094, 8939, 13015, 15558, 15193, 12194, 8205, 4701, 2318, 973, 336, 101, 26, 8, 3, 2));
+    }
+
+    /**
+     * @return serialization service which fails when the winning positions with the given number of pegs are written
+     */
+    private SerializationService failingSerializationService(int failingPegs) {
+        return new SerializationService() {
+            @Override
+            public Path storePositionsInCompactFile(Board board, LongSet positions, int numberOfRemainingPieces, int flags) {
+                if ((flags & PositionFileHeader.WINNING) != 0 && numberOfRemainingPieces == failingPegs) {
+                    throw new IllegalStateException("interrupted");
+                }
+                return super.storePositionsInCompactFile(board, positions, numberOfRemainingPieces, flags);
+            }
+        };
+    }
+
+    private Properties loadProperties(Path path) throws Exception {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        }
+        return properties;
+    }
+
+    @Test
+    public void testOnlyEnglishBoardIsSelfDual() {
+        Board englishBoard = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        Board quadraticBoard = new QuadraticBoardSizeFive(new BitManipulator(), new PositionRenderer());
+        assertThat(SerializingStrategy.isSelfDual(englishBoard, englishBoard.getStartPosition())).isTrue();
+        assertThat(SerializingStrategy.isSelfDual(englishBoard, englishBoard.getStartPosition() ^ 1L << 2)).isFalse();
+        // no end position
+        assertThat(SerializingStrategy.isSelfDual(quadraticBoard, quadraticBoard.getStartPosition())).isFalse();
+    }
+
+    @Test
+    public void testComplementDualityIsIgnoredForProblemsWhichAreNotSelfDual() {
+        Board board = new QuadraticBoardSizeFour(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        WinningPositionsStrategy strategy = new SerializingStrategy(serializationService, true);
+        List<Path> winningPositionsPaths = strategy.solve(board, 0B1110_1011_1111_1111L);
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(
+                1, 4, 10, 26, 60, 97, 117, 99, 61, 29, 11, 3, 1, 1));
+    }
+
+    // only the upper half of the layers is assembled, the lower half are the complements
+    @Test
+    public void testComplementDualityForEnglishBoard() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        WinningPositionsStrategy strategy = new SerializingStrategy(serializationService, true);
+        List<Path> winningPositionsPaths = strategy.solve(board, board.getStartPosition());
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        // like all winning positions, but the end position is the only winning position with one peg
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(
+                1, 1, 2, 8, 38, 164, 635, 2089, 6174, 16020, 35749, 68326, 112788, 162319, 204992, 230230,
+                230230, 204992, 162319, 112788, 68326, 35749, 16020, 6174, 2089, 635, 164, 38, 8, 2, 1, 1));
+    }
+
+    // reachable positions which can not reach the end position are not stored, the winning positions are the same as
+    // with complement duality only
+    @Test
+    public void testPagodaPruningForEnglishBoard() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        WinningPositionsStrategy strategy = new SerializingStrategy(serializationService, true, true);
+        List<Path> winningPositionsPaths = strategy.solve(board, board.getStartPosition());
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(
+                1, 1, 2, 8, 38, 164, 635, 2089, 6174, 16020, 35749, 68326, 112788, 162319, 204992, 230230,
+                230230, 204992, 162319, 112788, 68326, 35749, 16020, 6174, 2089, 635, 164, 38, 8, 2, 1, 1));
+    }
+
+    // the winning positions are the positions from which the end position can be reached (the other positions with
+    // one peg are not winning), i.e. the same as with complement duality. This test takes a while.
+    @Test
+    public void testPagodaPruningWithoutComplementDualityForEnglishBoard() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        SerializationService serializationService = new SerializationService();
+        WinningPositionsStrategy strategy = new SerializingStrategy(serializationService, false, true);
+        List<Path> winningPositionsPaths = strategy.solve(board, board.getStartPosition());
+        List<Integer> numberOfWinningPositions =
+                winningPositionsPaths.stream().map(path -> serializationService.readPositionsFromTxtFile(path).size()).collect(Collectors.toList());
+        assertThat(numberOfWinningPositions).isEqualTo(List.of(
+                1, 1, 2, 8, 38, 164, 635, 2089, 6174, 16020, 35749, 68326, 112788, 162319, 204992, 230230,
+                230230, 204992, 162319, 112788, 68326, 35749, 16020, 6174, 2089, 635, 164, 38, 8, 2, 1, 1));
+    }
+
     // this test takes a while (approximately 2 minutes on my computer).
     @Test
     public void testParallelStreamStrategyForEnglishBoard() {
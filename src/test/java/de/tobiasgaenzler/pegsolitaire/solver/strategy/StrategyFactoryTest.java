@@ -30,10 +30,40 @@ public class StrategyFactoryTest {
         assertThat(strategy).isInstanceOf(HighMemoryUsageStrategy.class);
     }
 
+    @Test
+    public void testSortingStrategyCreation() {
+        WinningPositionsStrategy strategy = (WinningPositionsStrategy) factory.create(SortingStrategy.NAME);
+        assertThat(strategy).isInstanceOf(SortingStrategy.class);
+    }
+
+    @Test
+    public void testExternalMemoryStrategyCreation() {
+        WinningPositionsStrategy strategy = (WinningPositionsStrategy) factory.create(ExternalMemoryStrategy.NAME);
+        assertThat(strategy).isInstanceOf(ExternalMemoryStrategy.class);
+    }
+
+    @Test
+    public void testPartitioningStrategyCreation() {
+        WinningPositionsStrategy strategy = (WinningPositionsStrategy) factory.create(PartitioningStrategy.NAME);
+        assertThat(strategy).isInstanceOf(PartitioningStrategy.class);
+    }
+
+    @Test
+    public void testBitmapStrategyCreation() {
+        WinningPositionsStrategy strategy = (WinningPositionsStrategy) factory.create(BitmapStrategy.NAME);
+        assertThat(strategy).isInstanceOf(BitmapStrategy.class);
+    }
+
     @Test
     public void testDepthFirstStrategyCreation() {
         SingleSolutionStrategy strategy = (SingleSolutionStrategy) factory.create(DepthFirstStrategy.NAME);
         assertThat(strategy).isInstanceOf(DepthFirstStrategy.class);
     }
 
+    @Test
+    public void testParallelDepthFirstStrategyCreation() {
+        SingleSolutionStrategy strategy = (SingleSolutionStrategy) factory.create(ParallelDepthFirstStrategy.NAME);
+        assertThat(strategy).isInstanceOf(ParallelDepthFirstStrategy.class);
+    }
+
 }
@@ -0,0 +1,54 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentLongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongSet set = new ConcurrentLongHashSet();
+
+        assertThat(set.isEmpty()).isTrue();
+        assertThat(set.add(0L)).isTrue();
+        assertThat(set.add(42L)).isTrue();
+        assertThat(set.add(-1L)).isTrue();
+        assertThat(set.add(42L)).isFalse();
+        assertThat(set.add(0L)).isFalse();
+
+        assertThat(set.size()).isEqualTo(3L);
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(set.contains(42L)).isTrue();
+        assertThat(set.contains(-1L)).isTrue();
+        assertThat(set.contains(43L)).isFalse();
+        assertThat(set.stream().boxed().collect(Collectors.toSet())).containsExactlyInAnyOrder(0L, 42L, -1L);
+    }
+
+    @Test
+    public void testConcurrentAddWithResizeKeepsAllValuesExactlyOnce() {
+        LongSet set = new ConcurrentLongHashSet();
+        AtomicLong added = new AtomicLong();
+        int count = 1_000_000;
+
+        // every value is added twice (concurrently), the set has to grow a lot during insertion
+        LongStream.range(0, 2L * count).parallel().forEach(i -> {
+            if (set.add((i % count) * 0x1_0001L)) {
+                added.incrementAndGet();
+            }
+        });
+
+        assertThat(added.get()).isEqualTo(count);
+        assertThat(set.size()).isEqualTo(count);
+        assertThat(LongStream.range(0, count).parallel().allMatch(i -> set.contains(i * 0x1_0001L))).isTrue();
+        assertThat(set.contains(count * 0x1_0001L)).isFalse();
+        Set<Long> values = set.stream().parallel().boxed().collect(Collectors.toSet());
+        assertThat(values).hasSize(count);
+        assertThat(set.getMemoryUsage()).isLessThanOrEqualTo(4L * count * Long.BYTES);
+    }
+}
@@ -0,0 +1,84 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeltaLongFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWrittenPositionsCanBeReadSequentiallyAndAsStream() throws Exception {
+        Random random = new Random(42L);
+        // several blocks, small and large deltas (including negative positions)
+        long[] positions = random.longs(5_000, -(1L << 50), 1L << 50).toArray();
+        positions = SortedLongArrays.sortUnique(positions, positions.length);
+        Path path = directory.resolve("positions.bin");
+        try (PositionWriter writer = PositionFileFormat.DELTA.openWriter(path)) {
+            writer.write(positions);
+        }
+        try (PositionReader reader = PositionFileFormat.DELTA.openReader(path)) {
+            long[] readPositions = new long[positions.length + 1];
+            assertThat(reader.read(readPositions)).isEqualTo(positions.length);
+            assertThat(Arrays.copyOf(readPositions, positions.length)).containsExactly(positions);
+            assertThat(reader.hasNext()).isFalse();
+        }
+        try (DeltaLongFileReader reader = new DeltaLongFileReader(path)) {
+            assertThat(reader.size()).isEqualTo(positions.length);
+            assertThat(reader.stream().parallel().toArray()).containsExactly(positions);
+        }
+    }
+
+    @Test
+    public void testSortedPositionsAreCompressedAndSeekable() throws Exception {
+        long[] positions = new long[10_000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (1L << 40) + 3L * i;
+        }
+        Path path = directory.resolve("positions.bin");
+        try (PositionWriter writer = PositionFileFormat.DELTA.openWriter(path)) {
+            writer.write(positions);
+            assertThat(writer.getCount()).isEqualTo(positions.length);
+        }
+        // one byte per delta (plus first position and index entry per block)
+        assertThat(Files.size(path)).isLessThan(positions.length * 2L);
+        try (DeltaLongFileReader reader = new DeltaLongFileReader(path)) {
+            assertThat(reader.contains((1L << 40) + 3L * 4321)).isTrue();
+            assertThat(reader.contains((1L << 40) + 3L * 4321 + 1L)).isFalse();
+            assertThat(reader.contains(1L << 40)).isTrue();
+            assertThat(reader.contains(0L)).isFalse();
+            assertThat(reader.contains(Long.MAX_VALUE)).isFalse();
+        }
+    }
+
+    @Test
+    public void testEmptyFileAndUnsortedPositions() {
+        Path path = directory.resolve("positions.bin");
+        PositionFileFormat.DELTA.openWriter(path).close();
+        try (DeltaLongFileReader reader = new DeltaLongFileReader(path)) {
+            assertThat(reader.hasNext()).isFalse();
+            assertThat(reader.contains(0L)).isFalse();
+        }
+        try (PositionWriter writer = PositionFileFormat.DELTA.openWriter(path)) {
+            writer.write(5L);
+            assertThatThrownBy(() -> writer.write(5L)).isInstanceOf(IllegalArgumentException.class);
+        }
+        // the first position of a block is checked as well
+        try (PositionWriter writer = PositionFileFormat.DELTA.openWriter(path)) {
+            for (long position = 1L; position <= DeltaLongFileWriter.BLOCK_SIZE; position++) {
+                writer.write(position);
+            }
+            assertThatThrownBy(() -> writer.write(1L)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> PositionFileFormat.fromName("zip")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,49 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FailedPositionTableTest {
+
+    @Test
+    public void testStoredPositionsAreFound() {
+        FailedPositionTable table = new FailedPositionTable(1 << 20);
+        LongStream.range(1, 1000).forEach(table::add);
+
+        assertThat(LongStream.range(1, 1000).allMatch(table::contains)).isTrue();
+        assertThat(table.contains(1000L)).isFalse();
+        assertThat(table.getMemoryUsage()).isEqualTo(1 << 20);
+    }
+
+    @Test
+    public void testPositionWithFewestPegsIsReplacedInFullBucket() {
+        // a single bucket
+        FailedPositionTable table = new FailedPositionTable(1L);
+        table.add(0b1111L);
+        table.add(0b0001L);
+        table.add(0b0111L);
+        table.add(0b0011L);
+        table.add(0b1111_0000L);
+
+        assertThat(table.getMemoryUsage()).isEqualTo(FailedPositionTable.BUCKET_SIZE * Long.BYTES);
+        assertThat(table.contains(0b0001L)).isFalse();
+        assertThat(table.contains(0b1111L)).isTrue();
+        assertThat(table.contains(0b0111L)).isTrue();
+        assertThat(table.contains(0b0011L)).isTrue();
+        assertThat(table.contains(0b1111_0000L)).isTrue();
+        assertThat(table.contains(0L)).isFalse();
+    }
+
+    @Test
+    public void testConcurrentlyAddedPositionsAreNeverFoundWithoutBeingAdded() {
+        FailedPositionTable table = new FailedPositionTable(1 << 12);
+        LongStream.range(0, 100_000).parallel().map(i -> i * 2 + 1).forEach(table::add);
+
+        // lossy: some of the positions are replaced, but positions which were never added are not found
+        assertThat(LongStream.range(1, 100_000).map(i -> i * 2).noneMatch(table::contains)).isTrue();
+        assertThat(LongStream.range(0, 100_000).map(i -> i * 2 + 1).filter(table::contains).count()).isPositive();
+    }
+}
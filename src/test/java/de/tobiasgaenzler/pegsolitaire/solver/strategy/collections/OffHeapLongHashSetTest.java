@@ -0,0 +1,44 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OffHeapLongHashSetTest {
+
+    @Test
+    public void testConcurrentAddWithResizeKeepsAllValuesExactlyOnce() {
+        NativeMemoryBudget budget = new NativeMemoryBudget(64L * 1024 * 1024);
+        LongSet set = new OffHeapLongHashSet(budget);
+        int count = 500_000;
+
+        LongStream.range(0, 2L * count).parallel().forEach(i -> set.add(i % count));
+
+        assertThat(set.size()).isEqualTo(count);
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(LongStream.range(0, count).parallel().allMatch(set::contains)).isTrue();
+        assertThat(set.contains(count)).isFalse();
+        Set<Long> values = set.stream().parallel().boxed().collect(Collectors.toSet());
+        assertThat(values).hasSize(count);
+        assertThat(budget.getReservedBytes()).isEqualTo(set.getMemoryUsage());
+
+        set.close();
+        assertThat(budget.getReservedBytes()).isZero();
+    }
+
+    @Test
+    public void testAddThrowsExceptionWhenBudgetIsExceeded() {
+        NativeMemoryBudget budget = new NativeMemoryBudget(1024L * 1024);
+        LongSet set = new OffHeapLongHashSet(budget);
+
+        Exception exception = assertThrows(IllegalStateException.class, () ->
+                LongStream.range(1, 1_000_000).forEach(set::add));
+        assertThat(exception.getMessage()).contains("Native memory budget");
+        assertThat(budget.getReservedBytes()).isLessThanOrEqualTo(budget.getMaxBytes());
+    }
+}
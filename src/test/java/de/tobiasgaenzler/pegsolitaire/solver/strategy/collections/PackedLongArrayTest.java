@@ -0,0 +1,32 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedLongArrayTest {
+
+    @Test
+    public void testValuesWithAtMost40BitsNeedFiveBytes() {
+        long[] values = {0L, 1L, 0xFFFF_FFFFL, 1L << 32, (1L << 40) - 1L};
+        PackedLongArray packedArray = new PackedLongArray(values);
+
+        assertThat(packedArray.length()).isEqualTo(5);
+        assertThat(packedArray.stream().toArray()).containsExactly(values);
+        assertThat(packedArray.getMemoryUsage()).isEqualTo(25L);
+        assertThat(packedArray.contains(1L << 32)).isTrue();
+        assertThat(packedArray.contains(2L)).isFalse();
+    }
+
+    @Test
+    public void testLargerValuesAreStoredAsLongs() {
+        long[] values = {3L, 1L << 40, 1L << 48};
+        PackedLongArray packedArray = new PackedLongArray(values);
+
+        assertThat(packedArray.stream().toArray()).containsExactly(values);
+        assertThat(packedArray.getMemoryUsage()).isEqualTo(24L);
+        assertThat(packedArray.contains(1L << 48)).isTrue();
+        assertThat(packedArray.contains(4L)).isFalse();
+        assertThat(new PackedLongArray(new long[0]).contains(0L)).isFalse();
+    }
+}
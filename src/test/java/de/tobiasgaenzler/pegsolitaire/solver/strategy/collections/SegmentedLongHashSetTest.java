@@ -0,0 +1,84 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class SegmentedLongHashSetTest {
+
+    @Test
+    public void testManyThreadsAddingToOneSmallSegmentOfHeapSet() {
+        assertManyThreadsAddingToOneSmallSegmentDoNotFillIt(ConcurrentLongHashSet::new);
+    }
+
+    @Test
+    public void testManyThreadsAddingToOneSmallSegmentOfOffHeapSet() {
+        NativeMemoryBudget budget = new NativeMemoryBudget(64L * 1024 * 1024);
+        assertManyThreadsAddingToOneSmallSegmentDoNotFillIt(() -> new OffHeapLongHashSet(budget));
+    }
+
+    @Test
+    public void testClosedHeapSetCanNotBeUsed() {
+        assertClosedSetCanNotBeUsed(new ConcurrentLongHashSet());
+    }
+
+    @Test
+    public void testClosedOffHeapSetCanNotBeUsed() {
+        NativeMemoryBudget budget = new NativeMemoryBudget(64L * 1024 * 1024);
+        assertClosedSetCanNotBeUsed(new OffHeapLongHashSet(budget));
+        assertThat(budget.getReservedBytes()).isZero();
+    }
+
+    private void assertManyThreadsAddingToOneSmallSegmentDoNotFillIt(Supplier<LongSet> setSupplier) {
+        // values of the same segment (upper bits of the hash), the segment starts with 16 slots
+        long[] values = LongStream.iterate(1L, i -> i + 1L).filter(i -> ConcurrentLongHashSet.hash(i) >>> 56 == 0L).limit(200).toArray();
+        int numberOfThreads = 32;
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int run = 0; run < 20; run++) {
+                try (LongSet set = setSupplier.get()) {
+                    CountDownLatch startSignal = new CountDownLatch(1);
+                    List<Thread> threads = LongStream.range(0, numberOfThreads).mapToObj(thread -> new Thread(() -> {
+                        try {
+                            startSignal.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        // every thread starts with another value
+                        for (int i = 0; i < values.length; i++) {
+                            set.add(values[(int) ((i + thread) % values.length)]);
+                        }
+                    })).collect(Collectors.toList());
+                    threads.forEach(Thread::start);
+                    startSignal.countDown();
+                    for (Thread thread : threads) {
+                        thread.join();
+                    }
+
+                    assertThat(set.size()).isEqualTo(values.length);
+                    assertThat(LongStream.of(values).allMatch(set::contains)).isTrue();
+                }
+            }
+        });
+    }
+
+    private void assertClosedSetCanNotBeUsed(LongSet set) {
+        set.add(42L);
+        set.close();
+
+        // fails fast instead of resizing the closed segments
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertThrows(IllegalStateException.class, () -> set.add(43L));
+            assertThrows(IllegalStateException.class, () -> set.add(0L));
+            assertThrows(IllegalStateException.class, () -> set.contains(42L));
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedLongArraysTest {
+
+    @Test
+    public void testSortUniqueIgnoresValuesBehindLength() {
+        long[] buffer = {5L, -1L, 3L, 5L, 3L, 42L, 7L};
+
+        assertThat(SortedLongArrays.sortUnique(buffer, 5)).containsExactly(-1L, 3L, 5L);
+    }
+
+    @Test
+    public void testMergeUniqueAndContains() {
+        long[] merged = SortedLongArrays.mergeUnique(List.of(new long[]{1L, 4L, 9L}, new long[0], new long[]{2L, 4L, 10L}));
+
+        assertThat(merged).containsExactly(1L, 2L, 4L, 9L, 10L);
+        assertThat(SortedLongArrays.contains(merged, 9L)).isTrue();
+        assertThat(SortedLongArrays.contains(merged, 3L)).isFalse();
+    }
+
+    @Test
+    public void testIntersect() {
+        assertThat(SortedLongArrays.intersect(new long[]{1L, 3L, 5L, 7L}, new long[]{2L, 3L, 7L, 8L})).containsExactly(3L, 7L);
+        assertThat(SortedLongArrays.intersect(new long[]{1L}, new long[0])).isEmpty();
+    }
+}
@@ -0,0 +1,29 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class LinearProgramTest {
+
+    @Test
+    public void testOptimalSolutionAndDualSolution() {
+        // maximize 3x + 5y subject to x <= 4, 2y <= 12, 3x + 2y <= 18
+        LinearProgram program = new LinearProgram(new double[][]{{1, 0}, {0, 2}, {3, 2}}, new double[]{4, 12, 18}, new double[]{3, 5});
+
+        assertThat(program.solve()).isCloseTo(36.0, within(1e-9));
+        assertThat(program.getSolution()).containsExactly(new double[]{2.0, 6.0}, within(1e-9));
+        // minimize 4a + 12b + 18c subject to a + 3c >= 3, 2b + 2c >= 5
+        assertThat(program.getDualSolution()).containsExactly(new double[]{0.0, 1.5, 1.0}, within(1e-9));
+    }
+
+    @Test
+    public void testUnboundedProgram() {
+        // maximize x + y subject to x - y <= 1
+        LinearProgram program = new LinearProgram(new double[][]{{1, -1}}, new double[]{1}, new double[]{1, 1});
+
+        assertThatThrownBy(program::solve).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,59 @@
+package de.tobiasgaenzler.pegsolitaire.solver.strategy.pagoda;
+
+import de.tobiasgaenzler.pegsolitaire.board.Board;
+import de.tobiasgaenzler.pegsolitaire.board.EnglishBoard;
+import de.tobiasgaenzler.pegsolitaire.board.PositionRenderer;
+import de.tobiasgaenzler.pegsolitaire.board.QuadraticBoardSizeSix;
+import de.tobiasgaenzler.pegsolitaire.solver.strategy.bits.BitManipulator;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PagodaFunctionsTest {
+
+    @Test
+    public void testNoMoveIncreasesThePagodaValue() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        PagodaFunctions pagodaFunctions = PagodaFunctions.forEndPosition(board);
+
+        assertThat(pagodaFunctions.size()).isPositive();
+        for (PagodaFunction function : pagodaFunctions.getFunctions(board.getEndPosition())) {
+            long[] masks = board.getMoveMasks();
+            long[] checks = board.getMoveChecks();
+            for (int move = 0; move < masks.length; move++) {
+                // the value of the pegs of a move before and after the move
+                assertThat(function.getValue(masks[move] ^ checks[move])).isLessThanOrEqualTo(function.getValue(checks[move]));
+            }
+        }
+    }
+
+    @Test
+    public void testPositionsWhichCanNotReachTheEndPositionAreRejected() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+        PagodaFunctions pagodaFunctions = PagodaFunctions.forEndPosition(board);
+        long endPosition = board.getEndPosition();
+
+        assertThat(pagodaFunctions.canReachTarget(board.getStartPosition())).isTrue();
+        assertThat(pagodaFunctions.canReachTarget(endPosition)).isTrue();
+        // one peg which is not the end position
+        assertThat(pagodaFunctions.canReachTarget(Long.lowestOneBit(board.getLayout()))).isFalse();
+    }
+
+    @Test
+    public void testFunctionsAreCachedPerBoardAndTargets() {
+        Board board = new EnglishBoard(new BitManipulator(), new PositionRenderer());
+
+        assertThat(PagodaFunctions.forEndPosition(board)).isSameAs(PagodaFunctions.forEndPosition(board));
+        // the end position of the english board is symmetric
+        assertThat(PagodaFunctions.forCanonicalPositions(board)).isSameAs(PagodaFunctions.forEndPosition(board));
+    }
+
+    @Test
+    public void testNoPositionIsRejectedWithoutEndPosition() {
+        Board board = new QuadraticBoardSizeSix(new BitManipulator(), new PositionRenderer());
+        PagodaFunctions pagodaFunctions = PagodaFunctions.forEndPosition(board);
+
+        assertThat(pagodaFunctions.size()).isZero();
+        assertThat(pagodaFunctions.canReachTarget(1L)).isTrue();
+    }
+}